@@ -32,4 +32,40 @@ public class AsyncConfig {
         executor.initialize();
         return executor;
     }
-}
\ No newline at end of file
+
+    // Runs the independent admin dashboard aggregate queries side by side
+    @Bean(name = "dashboardQueryExecutor")
+    public Executor dashboardQueryExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(4);
+        executor.setMaxPoolSize(8);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("dashboard-");
+        executor.initialize();
+        return executor;
+    }
+
+    // Renders statement jobs; kept small so month-end bursts cannot starve request threads
+    @Bean(name = "statementExecutor")
+    public ThreadPoolTaskExecutor statementExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(50);
+        executor.setThreadNamePrefix("statement-");
+        executor.initialize();
+        return executor;
+    }
+
+    // Writes Server-Sent Events to notification streams, off the threads that create notifications
+    @Bean(name = "notificationPushExecutor")
+    public ThreadPoolTaskExecutor notificationPushExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(4);
+        executor.setQueueCapacity(1000);
+        executor.setThreadNamePrefix("notification-push-");
+        executor.initialize();
+        return executor;
+    }
+}
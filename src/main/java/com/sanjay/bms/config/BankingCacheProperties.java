@@ -0,0 +1,47 @@
+package com.sanjay.bms.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-cache limits, e.g. banking.cache.specs[userDashboard].ttl=60s.
+ * Caches without a spec, or specs missing a value, fall back to the defaults.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "banking.cache")
+public class BankingCacheProperties {
+
+    private Spec defaults = new Spec(1000, Duration.ofMinutes(10));
+    private Map<String, Spec> specs = new HashMap<>();
+
+    @Getter
+    @Setter
+    public static class Spec {
+        private Integer maxSize;
+        private Duration ttl;
+
+        public Spec() {
+        }
+
+        public Spec(Integer maxSize, Duration ttl) {
+            this.maxSize = maxSize;
+            this.ttl = ttl;
+        }
+    }
+
+    public int maxSizeFor(String cacheName) {
+        Spec spec = specs.get(cacheName);
+        return spec != null && spec.getMaxSize() != null ? spec.getMaxSize() : defaults.getMaxSize();
+    }
+
+    public Duration ttlFor(String cacheName) {
+        Spec spec = specs.get(cacheName);
+        return spec != null && spec.getTtl() != null ? spec.getTtl() : defaults.getTtl();
+    }
+}
@@ -1,23 +1,60 @@
 // src/main/java/com/sanjay/bms/config/CacheConfig.java
 package com.sanjay.bms.config;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.List;
+
+@Slf4j
 @Configuration
 @EnableCaching
+@EnableConfigurationProperties(BankingCacheProperties.class)
 public class CacheConfig {
 
+    private static final List<String> CACHE_NAMES = List.of(
+            "userDashboard",
+            "accountStatistics",
+            "notifications",
+            "transactions",
+            "userStatus",
+            "idempotency"
+    );
+
+    /**
+     * Caffeine caches sized from {@link BankingCacheProperties}. Names not known up front
+     * are created on first use with their configured or default limits. Statistics are
+     * recorded so actuator publishes the cache.gets / cache.evictions meters.
+     */
     @Bean
-    public CacheManager cacheManager() {
-        return new ConcurrentMapCacheManager(
-                "userDashboard",
-                "accountStatistics",
-                "notifications",
-                "transactions"
-        );
+    public CacheManager cacheManager(BankingCacheProperties properties) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager() {
+            @Override
+            protected Cache<Object, Object> createNativeCaffeineCache(String name) {
+                return buildCache(properties, name);
+            }
+        };
+        // Registered individually so caches outside this list can still be created on demand
+        CACHE_NAMES.forEach(name -> cacheManager.registerCustomCache(name, buildCache(properties, name)));
+        return cacheManager;
+    }
+
+    private static Cache<Object, Object> buildCache(BankingCacheProperties properties, String name) {
+        int maxSize = properties.maxSizeFor(name);
+        log.info("Cache '{}' limited to {} entries, ttl {}", name, maxSize, properties.ttlFor(name));
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats();
+        if (properties.ttlFor(name) != null) {
+            builder.expireAfterWrite(properties.ttlFor(name));
+        }
+        return builder.build();
     }
-}
\ No newline at end of file
+}
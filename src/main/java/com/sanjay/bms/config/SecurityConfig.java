@@ -1,6 +1,7 @@
 package com.sanjay.bms.config;
 
 import com.sanjay.bms.security.JwtAuthenticationFilter;
+import jakarta.servlet.DispatcherType;
 import lombok.AllArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -58,6 +59,9 @@ public class SecurityConfig {
                 .sessionManagement(session ->
                         session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
+                        // Async dispatches (notification streams) were authorized on the original request
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
                         // Allow frontend files
                         .requestMatchers(
                                 "/", "/index.html", "/dashboard.html",
@@ -80,6 +84,7 @@ public class SecurityConfig {
 
                         // Admin-only endpoints
                         .requestMatchers("/api/admin/**").hasRole("ADMIN")
+                        .requestMatchers("/actuator/metrics/**", "/actuator/caches/**").hasRole("ADMIN")
 
                         // Default
                         .anyRequest().authenticated()
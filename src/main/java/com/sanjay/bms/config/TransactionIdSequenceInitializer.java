@@ -0,0 +1,34 @@
+package com.sanjay.bms.config;
+
+import com.sanjay.bms.repository.TransactionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * One-off migration for the move of transaction ids from an identity column to the pooled
+ * transactions_seq: moves the sequence past the ids already handed out. Once the sequence
+ * is ahead, which is after the first start following the switch, this is a single no-op
+ * query, and it only ever advances the sequence, so nodes starting together are safe.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class TransactionIdSequenceInitializer {
+
+    private final TransactionRepository transactionRepository;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void alignIdSequence() {
+        try {
+            Long advanced = transactionRepository.alignIdSequence();
+            if (advanced != null && advanced > 0) {
+                log.info("Advanced transactions_seq by {} blocks past existing transaction ids", advanced);
+            }
+        } catch (Exception e) {
+            log.warn("Could not align transaction id sequence: {}", e.getMessage());
+        }
+    }
+}
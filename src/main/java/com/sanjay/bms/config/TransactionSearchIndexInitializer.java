@@ -0,0 +1,49 @@
+package com.sanjay.bms.config;
+
+import com.sanjay.bms.service.ConcurrentIndexBuilder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates the search indexes that JPA cannot describe: a GIN full-text index over
+ * description and reference number, and pg_trgm indexes for substring matches.
+ * Indexes are built concurrently, so transfers keep being recorded while a first build
+ * over a populated table runs. Every statement is idempotent, so this is safe to run
+ * on each start.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class TransactionSearchIndexInitializer {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ConcurrentIndexBuilder indexBuilder;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void createIndexes() {
+        indexBuilder.createIndex("idx_transactions_search_fts", "ON transactions USING GIN " +
+                "(to_tsvector('simple', coalesce(description, '') || ' ' || coalesce(reference_number, '')))");
+
+        // pg_trgm may need a superuser; without it search still works, just without substring indexes
+        if (createExtension()) {
+            indexBuilder.createIndex("idx_transactions_reference_trgm",
+                    "ON transactions USING GIN (reference_number gin_trgm_ops)");
+            indexBuilder.createIndex("idx_transactions_description_trgm",
+                    "ON transactions USING GIN (description gin_trgm_ops)");
+        }
+    }
+
+    private boolean createExtension() {
+        try {
+            jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS pg_trgm");
+            return true;
+        } catch (Exception e) {
+            log.warn("Could not create transaction search index: {}", e.getMessage());
+            return false;
+        }
+    }
+}
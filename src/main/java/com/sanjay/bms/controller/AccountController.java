@@ -1,7 +1,9 @@
 package com.sanjay.bms.controller;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.sanjay.bms.dto.AccountDto;
 import com.sanjay.bms.service.AccountService;
+import com.sanjay.bms.service.IdempotencyService;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.AllArgsConstructor;
 import org.springframework.http.HttpStatus;
@@ -20,6 +22,7 @@ import java.util.Map;
 public class AccountController {
 
     private final AccountService accountService;
+    private final IdempotencyService idempotencyService;
 
     @PostMapping
     public ResponseEntity<AccountDto> createAccount(@RequestBody AccountDto accountDto,
@@ -73,21 +76,27 @@ public class AccountController {
     @PutMapping("/id/{id}/deposit")
     public ResponseEntity<AccountDto> deposit(@PathVariable Long id,
                                               @RequestBody Map<String, BigDecimal> request,
+                                              @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
                                               Authentication authentication,
                                               HttpServletRequest httpRequest) {
         String username = authentication.getName();
         BigDecimal amount = request.get("amount");
-        return ResponseEntity.ok(accountService.deposit(id, amount, username, httpRequest));
+        return idempotencyService.execute(idempotencyKey, username, "deposit:" + id, request,
+                new TypeReference<AccountDto>() {},
+                () -> ResponseEntity.ok(accountService.deposit(id, amount, username, httpRequest)));
     }
 
     @PutMapping("/id/{id}/withdraw")
     public ResponseEntity<AccountDto> withdraw(@PathVariable Long id,
                                                @RequestBody Map<String, BigDecimal> request,
+                                               @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
                                                Authentication authentication,
                                                HttpServletRequest httpRequest) {
         String username = authentication.getName();
         BigDecimal amount = request.get("amount");
-        return ResponseEntity.ok(accountService.withdraw(id, amount, username, httpRequest));
+        return idempotencyService.execute(idempotencyKey, username, "withdraw:" + id, request,
+                new TypeReference<AccountDto>() {},
+                () -> ResponseEntity.ok(accountService.withdraw(id, amount, username, httpRequest)));
     }
 
     @PutMapping("/id/{id}/freeze")
@@ -28,13 +28,14 @@ public class AccountsDirectoryController {
     }
 
     /**
-     * Search accounts by name or account number
+     * Search accounts by name or account number, best matches first
      */
     @GetMapping("/accounts/search")
     public ResponseEntity<List<AccountDirectoryDto>> searchAccounts(
             @RequestParam String query,
+            @RequestParam(defaultValue = "10") int limit,
             Authentication authentication) {
-        return ResponseEntity.ok(directoryService.searchAccounts(query));
+        return ResponseEntity.ok(directoryService.searchAccounts(query, limit));
     }
 
     /**
@@ -1,14 +1,25 @@
 package com.sanjay.bms.controller;
 
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.sanjay.bms.dto.*;
 import com.sanjay.bms.service.AdminService;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.AllArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
-
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
@@ -20,6 +31,7 @@ import java.util.Map;
 public class AdminController {
 
     private final AdminService adminService;
+    private final ObjectMapper objectMapper;
 
     // User Management
     @GetMapping("/users")
@@ -82,8 +94,30 @@ public class AdminController {
 
     // Transaction Management
     @GetMapping("/transactions")
-    public ResponseEntity<List<TransactionDto>> getAllTransactions() {
-        return ResponseEntity.ok(adminService.getAllTransactions());
+    public ResponseEntity<TransactionPageDto> getTransactions(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(adminService.getTransactions(cursor, size));
+    }
+
+    // Full export as newline-delimited JSON, streamed row by row
+    @GetMapping(value = "/transactions/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamTransactions() {
+        StreamingResponseBody body = outputStream -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            adminService.streamTransactions(transaction -> {
+                try {
+                    writer.write(objectMapper.writeValueAsString(transaction));
+                    writer.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
     }
 
     @GetMapping("/transactions/pending")
@@ -127,8 +161,10 @@ public class AdminController {
 
     // Reports
     @GetMapping("/reports/daily-summary")
-    public ResponseEntity<DailySummaryDto> getDailySummary() {
-        return ResponseEntity.ok(adminService.getDailySummary());
+    public ResponseEntity<DailySummaryDto> getDailySummary(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+            LocalDate date) {
+        return ResponseEntity.ok(adminService.getDailySummary(date));
     }
 
     @GetMapping("/reports/account-types")
@@ -2,12 +2,18 @@
 package com.sanjay.bms.controller;
 
 import com.sanjay.bms.dto.NotificationDto;
+import com.sanjay.bms.dto.NotificationPageDto;
+import com.sanjay.bms.service.NotificationRetentionService;
+import com.sanjay.bms.service.NotificationStreamService;
+import com.sanjay.bms.service.UnreadNotificationCounter;
 import com.sanjay.bms.service.UserProfileService;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 import java.util.Map;
@@ -20,6 +26,15 @@ import java.util.Map;
 public class NotificationController {
 
     private final UserProfileService userProfileService;
+    private final NotificationStreamService notificationStreamService;
+    private final UnreadNotificationCounter unreadNotificationCounter;
+    private final NotificationRetentionService notificationRetentionService;
+
+    // Pushes "unread" (count) and "notification" events as they happen
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamNotifications(Authentication authentication) {
+        return notificationStreamService.subscribe(authentication.getName());
+    }
 
     @GetMapping
     public ResponseEntity<List<NotificationDto>> getAllNotifications(Authentication authentication) {
@@ -30,6 +45,27 @@ public class NotificationController {
         return ResponseEntity.ok(notifications);
     }
 
+    // Keyset-paginated history, newest first; pass nextCursor back for the following page
+    @GetMapping("/page")
+    public ResponseEntity<NotificationPageDto> getNotificationsPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean unreadOnly,
+            Authentication authentication) {
+        String username = authentication.getName();
+        return ResponseEntity.ok(userProfileService.getNotificationsPage(username, cursor, size, unreadOnly));
+    }
+
+    // Read notifications moved out of the live table by the retention job
+    @GetMapping("/archive")
+    public ResponseEntity<NotificationPageDto> getArchivedNotifications(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            Authentication authentication) {
+        String username = authentication.getName();
+        return ResponseEntity.ok(notificationRetentionService.getArchivedPage(username, cursor, size));
+    }
+
     @GetMapping("/unread")
     public ResponseEntity<List<NotificationDto>> getUnreadNotifications(Authentication authentication) {
         String username = authentication.getName();
@@ -42,9 +78,7 @@ public class NotificationController {
     @GetMapping("/unread/count")
     public ResponseEntity<Long> getUnreadCount(Authentication authentication) {
         String username = authentication.getName();
-
-        List<NotificationDto> unreadNotifications = userProfileService.getUnreadNotifications(username);
-        return ResponseEntity.ok((long) unreadNotifications.size());
+        return ResponseEntity.ok(unreadNotificationCounter.get(username));
     }
 
     // Update NotificationController.java
@@ -71,9 +105,7 @@ public class NotificationController {
         String username = authentication.getName();
         log.info("Deleting notification {} for user: {}", id, username);
 
-        // Note: You may want to add a delete method in the service
-        // For now, just mark as read
-        userProfileService.markNotificationAsRead(id);
+        userProfileService.deleteNotification(id, username);
         return ResponseEntity.ok("Notification deleted");
     }
 }
\ No newline at end of file
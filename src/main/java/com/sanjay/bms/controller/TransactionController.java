@@ -1,17 +1,27 @@
 package com.sanjay.bms.controller;
 
 import com.sanjay.bms.dto.*;
+import com.sanjay.bms.entity.Account;
+import com.sanjay.bms.entity.StatementJob;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.sanjay.bms.service.BatchTransferService;
+import com.sanjay.bms.service.IdempotencyService;
 import com.sanjay.bms.service.TransactionService;
+import com.sanjay.bms.service.StatementJobService;
 import com.sanjay.bms.service.StatementService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.AllArgsConstructor;
+import org.springframework.core.io.Resource;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
 import java.math.BigDecimal;
@@ -27,6 +37,9 @@ public class TransactionController {
 
     private final TransactionService transactionService;
     private final StatementService statementService;
+    private final BatchTransferService batchTransferService;
+    private final StatementJobService statementJobService;
+    private final IdempotencyService idempotencyService;
 
     @GetMapping("/account/{accountId}")
     public ResponseEntity<List<TransactionDto>> getAccountTransactions(
@@ -48,34 +61,59 @@ public class TransactionController {
     @PostMapping("/transfer")
     public ResponseEntity<TransactionDto> transferFunds(
             @RequestBody TransferRequestWithOtp request,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
             Authentication authentication,
             HttpServletRequest httpRequest) {
         String username = authentication.getName();
-        return new ResponseEntity<>(
-                transactionService.transferFunds(request, username, httpRequest),
-                HttpStatus.CREATED);
+        return idempotencyService.execute(idempotencyKey, username, "transfer", request,
+                new TypeReference<TransactionDto>() {},
+                () -> new ResponseEntity<>(
+                        transactionService.transferFunds(request, username, httpRequest),
+                        HttpStatus.CREATED));
     }
 
     // ✅ FIXED: This endpoint works correctly now
     @PostMapping("/transfer/initiate")
     public ResponseEntity<Map<String, String>> initiateTransfer(
             @RequestBody TransferRequest request,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
             Authentication authentication) {
         String username = authentication.getName();
-        String transactionRef = transactionService.initiateTransfer(request, username);
+        return idempotencyService.execute(idempotencyKey, username, "transfer/initiate", request,
+                new TypeReference<Map<String, String>>() {}, () -> {
+                    String transactionRef = transactionService.initiateTransfer(request, username);
+
+                    // Check if OTP is required (high-value transaction)
+                    boolean requiresOtp = request.getAmount().compareTo(new BigDecimal("25000")) > 0;
+
+                    return ResponseEntity.ok(Map.of(
+                            "message", transactionRef,
+                            "status", requiresOtp ? "PENDING" : "SUCCESS",
+                            "requiresOtp", requiresOtp ? "true" : "false"
+                    ));
+                });
+    }
 
-        // Check if OTP is required (high-value transaction)
-        boolean requiresOtp = request.getAmount().compareTo(new BigDecimal("25000")) > 0;
+    @PostMapping(value = "/transfer/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BatchTransferResultDto> transferBatch(
+            @RequestBody List<TransferRequest> requests,
+            Authentication authentication) {
+        String username = authentication.getName();
+        return ResponseEntity.ok(batchTransferService.executeBatch(requests, username));
+    }
 
-        return ResponseEntity.ok(Map.of(
-                "message", transactionRef,
-                "status", requiresOtp ? "PENDING" : "SUCCESS",
-                "requiresOtp", requiresOtp ? "true" : "false"
-        ));
+    // Same batch uploaded as a CSV or JSON file
+    @PostMapping(value = "/transfer/batch", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<BatchTransferResultDto> transferBatchFile(
+            @RequestParam("file") MultipartFile file,
+            Authentication authentication) {
+        String username = authentication.getName();
+        List<TransferRequest> requests = batchTransferService.parseFile(file);
+        return ResponseEntity.ok(batchTransferService.executeBatch(requests, username));
     }
 
     @PostMapping("/filter")
-    public ResponseEntity<List<TransactionDto>> filterTransactions(
+    public ResponseEntity<TransactionPageDto> filterTransactions(
             @RequestBody TransactionFilterDto filter,
             Authentication authentication) {
         String username = authentication.getName();
@@ -83,11 +121,13 @@ public class TransactionController {
     }
 
     @GetMapping("/search")
-    public ResponseEntity<List<TransactionDto>> searchTransactions(
+    public ResponseEntity<TransactionSearchPageDto> searchTransactions(
             @RequestParam String query,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
             Authentication authentication) {
         String username = authentication.getName();
-        return ResponseEntity.ok(transactionService.searchTransactions(query, username));
+        return ResponseEntity.ok(transactionService.searchTransactions(query, page, size, username));
     }
 
     @GetMapping("/reference/{refNumber}")
@@ -104,26 +144,73 @@ public class TransactionController {
             Authentication authentication,
             HttpServletResponse response) throws IOException {
         String username = authentication.getName();
-        byte[] pdfBytes = statementService.generatePdfStatement(request, username);
+        Account account = statementService.getStatementAccount(request, username);
 
         response.setContentType("application/pdf");
         response.setHeader("Content-Disposition",
                 "attachment; filename=statement_" + request.getAccountId() + ".pdf");
-        response.getOutputStream().write(pdfBytes);
+        statementService.writePdfStatement(request, account, response.getOutputStream());
     }
 
-    @PostMapping(value = "/statement/csv", produces = "text/csv")
-    public void downloadStatementCsv(
+    // Streams the CSV as it is read; gzip=true sends it compressed as a .csv.gz file
+    @PostMapping(value = "/statement/csv", produces = {"text/csv", "application/gzip"})
+    public ResponseEntity<StreamingResponseBody> downloadStatementCsv(
             @RequestBody StatementRequest request,
-            Authentication authentication,
-            HttpServletResponse response) throws IOException {
+            @RequestParam(defaultValue = "false") boolean gzip,
+            Authentication authentication) {
         String username = authentication.getName();
-        String csvContent = statementService.generateCsvStatement(request, username);
+        statementService.getStatementAccount(request, username);
 
-        response.setContentType("text/csv");
-        response.setHeader("Content-Disposition",
-                "attachment; filename=statement_" + request.getAccountId() + ".csv");
-        response.getWriter().write(csvContent);
+        StreamingResponseBody body = outputStream ->
+                statementService.writeCsvStatement(request, outputStream, gzip);
+
+        String fileName = "statement_" + request.getAccountId() + (gzip ? ".csv.gz" : ".csv");
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(gzip ? "application/gzip" : "text/csv"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + fileName)
+                .body(body);
+    }
+
+    // Queues the statement for background rendering; poll the job and download when COMPLETED
+    @PostMapping("/statement/jobs")
+    public ResponseEntity<StatementJobDto> submitStatementJob(
+            @RequestBody StatementRequest request,
+            Authentication authentication) {
+        String username = authentication.getName();
+        return new ResponseEntity<>(statementJobService.submit(request, username), HttpStatus.ACCEPTED);
+    }
+
+    @GetMapping("/statement/jobs")
+    public ResponseEntity<List<StatementJobDto>> getStatementJobs(Authentication authentication) {
+        String username = authentication.getName();
+        return ResponseEntity.ok(statementJobService.getJobs(username));
+    }
+
+    @GetMapping("/statement/jobs/{jobId}")
+    public ResponseEntity<StatementJobDto> getStatementJob(
+            @PathVariable String jobId,
+            Authentication authentication) {
+        String username = authentication.getName();
+        return ResponseEntity.ok(statementJobService.getJob(jobId, username));
+    }
+
+    @GetMapping("/statement/jobs/{jobId}/download")
+    public ResponseEntity<Resource> downloadStatement(
+            @PathVariable String jobId,
+            Authentication authentication) {
+        String username = authentication.getName();
+        StatementJob job = statementJobService.getDownloadableJob(jobId, username);
+
+        boolean pdf = "PDF".equals(job.getFormat());
+        String fileName = "statement_" + job.getAccountId() + "_" + job.getStartDate().toLocalDate()
+                + "_" + job.getEndDate().toLocalDate() + (pdf ? ".pdf" : ".csv");
+        return ResponseEntity.ok()
+                .contentType(pdf ? MediaType.APPLICATION_PDF : MediaType.parseMediaType("text/csv"))
+                .contentLength(job.getSizeBytes())
+                .eTag(job.getChecksum())
+                .header("X-Checksum-SHA256", job.getChecksum())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + fileName)
+                .body(statementJobService.getArtifact(job));
     }
 
     @GetMapping("/stats")
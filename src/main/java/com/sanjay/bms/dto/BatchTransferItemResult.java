@@ -0,0 +1,19 @@
+package com.sanjay.bms.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchTransferItemResult {
+    private int index; // Position in the submitted batch, starting at 0
+    private String fromAccountNumber;
+    private String toAccountNumber;
+    private BigDecimal amount;
+    private String status; // SUCCESS, FAILED
+    private String referenceNumber;
+    private String message;
+}
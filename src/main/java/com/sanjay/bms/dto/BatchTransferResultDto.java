@@ -0,0 +1,18 @@
+package com.sanjay.bms.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchTransferResultDto {
+    private int totalItems;
+    private int succeeded;
+    private int failed;
+    private BigDecimal totalAmount; // Sum of the successful transfers
+    private List<BatchTransferItemResult> items;
+}
@@ -0,0 +1,15 @@
+package com.sanjay.bms.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class NotificationPageDto {
+    private List<NotificationDto> notifications;
+    private String nextCursor; // Opaque keyset cursor, null on the last page
+    private boolean hasMore;
+}
@@ -0,0 +1,25 @@
+package com.sanjay.bms.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class StatementJobDto {
+    private String jobId;
+    private Long accountId;
+    private LocalDateTime startDate;
+    private LocalDateTime endDate;
+    private String format;
+    private String status;
+    private boolean preRendered;
+    private String checksum;
+    private Long sizeBytes;
+    private String errorMessage;
+    private LocalDateTime createdAt;
+    private LocalDateTime completedAt;
+    private LocalDateTime expiresAt;
+}
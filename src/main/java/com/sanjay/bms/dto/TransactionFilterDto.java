@@ -17,4 +17,9 @@ public class TransactionFilterDto {
     private LocalDateTime startDate;
     private LocalDateTime endDate;
     private String status;
+
+    private String sortBy; // transactionDate (default) or amount
+    private String sortDirection; // DESC (default) or ASC
+    private String cursor; // nextCursor from the previous page
+    private Integer size;
 }
\ No newline at end of file
@@ -0,0 +1,15 @@
+package com.sanjay.bms.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class TransactionPageDto {
+    private List<TransactionDto> transactions;
+    private String nextCursor; // Opaque keyset cursor, null on the last page
+    private boolean hasMore;
+}
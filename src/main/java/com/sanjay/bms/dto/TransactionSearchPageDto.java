@@ -0,0 +1,16 @@
+package com.sanjay.bms.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class TransactionSearchPageDto {
+    private List<TransactionDto> transactions; // Best match first
+    private int page;
+    private int size;
+    private boolean hasMore;
+}
@@ -2,6 +2,8 @@ package com.sanjay.bms.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -11,6 +13,9 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
+// Only changed columns are written, so saving an Account does not overwrite the daily
+// limit totals that DailyLimitService writes behind
+@DynamicUpdate
 @Table(name="accounts")
 public class Account {
     @Id
@@ -56,6 +61,12 @@ public class Account {
     private String frozenReason;
     private LocalDateTime frozenAt;
 
+    // Bumped on every update; used by the optimistic transfer mode
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version = 0L;
+
     // FIXED: Added helper method to get user ID
     public Long getUserId() {
         return user != null ? user.getId() : null;
@@ -9,7 +9,9 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table(name="audit_logs")
+@Table(name="audit_logs", indexes = {
+        @Index(name = "idx_audit_logs_severity_timestamp", columnList = "severity, timestamp")
+})
 public class AuditLog {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -0,0 +1,63 @@
+package com.sanjay.bms.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name="daily_summaries")
+public class DailySummary {
+    @Id
+    private LocalDate summaryDate;
+
+    @Column(nullable = false)
+    private Long totalTransactions = 0L;
+
+    @Column(nullable = false)
+    private BigDecimal totalTransactionAmount = BigDecimal.ZERO;
+
+    @Column(nullable = false)
+    private Long depositsCount = 0L;
+
+    @Column(nullable = false)
+    private BigDecimal depositsAmount = BigDecimal.ZERO;
+
+    @Column(nullable = false)
+    private Long withdrawalsCount = 0L;
+
+    @Column(nullable = false)
+    private BigDecimal withdrawalsAmount = BigDecimal.ZERO;
+
+    @Column(nullable = false)
+    private Long transfersCount = 0L; // One per transfer, not per leg
+
+    @Column(nullable = false)
+    private BigDecimal transfersAmount = BigDecimal.ZERO;
+
+    @Column(nullable = false)
+    private Long newAccounts = 0L;
+
+    @Column(nullable = false)
+    private Long newUsers = 0L;
+
+    @Column(nullable = false)
+    private Long activeAccounts = 0L; // Accounts with at least one transaction that day
+
+    @Column(nullable = false)
+    private BigDecimal netFlow = BigDecimal.ZERO; // Deposits and opening balances minus withdrawals
+
+    private BigDecimal closingBalance; // Recorded once the day is over
+
+    private LocalDateTime updatedAt;
+
+    public DailySummary(LocalDate summaryDate) {
+        this.summaryDate = summaryDate;
+    }
+}
@@ -9,7 +9,10 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table(name="notifications")
+@Table(name="notifications", indexes = {
+        @Index(name = "idx_notifications_user_created_id", columnList = "user_id, createdAt, id"),
+        @Index(name = "idx_notifications_user_read", columnList = "user_id, isRead")
+})
 public class Notification {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -0,0 +1,21 @@
+package com.sanjay.bms.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+// Rendered statement file, kept in the database so every node can serve it.
+// Written and read by StatementArtifactStore; content is never loaded through JPA
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name="statement_artifacts")
+public class StatementArtifact {
+    @Id
+    @Column(length = 36)
+    private String jobId; // StatementJob id
+
+    @Column(nullable = false, columnDefinition = "BYTEA")
+    private byte[] content;
+}
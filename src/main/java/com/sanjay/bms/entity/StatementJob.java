@@ -0,0 +1,58 @@
+package com.sanjay.bms.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name="statement_jobs", indexes = {
+        @Index(name = "idx_statement_jobs_status_created", columnList = "status, createdAt"),
+        @Index(name = "idx_statement_jobs_username_created", columnList = "username, createdAt"),
+        @Index(name = "idx_statement_jobs_account_period", columnList = "accountId, format, startDate, endDate")
+})
+public class StatementJob {
+    @Id
+    @Column(length = 36)
+    private String id; // UUID, also used as the download handle
+
+    @Column(nullable = false)
+    private String username; // Owner of the account
+
+    @Column(nullable = false)
+    private Long accountId;
+
+    @Column(nullable = false)
+    private LocalDateTime startDate;
+
+    @Column(nullable = false)
+    private LocalDateTime endDate;
+
+    @Column(nullable = false)
+    private String format; // PDF, CSV
+
+    @Column(nullable = false)
+    private String status; // PENDING, QUEUED, RUNNING, COMPLETED, FAILED, EXPIRED
+
+    @Column(nullable = false)
+    private Boolean preRendered = false; // Created by the month-end run rather than a user
+
+    private String ownerNode; // Node that queued or is rendering the job
+    private LocalDateTime leaseExpiresAt; // Renewed by the owner's heartbeat; requeued once passed
+
+    private String filePath;
+    private String checksum; // SHA-256 of the artifact, hex
+    private Long sizeBytes;
+
+    @Column(length = 500)
+    private String errorMessage;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime completedAt;
+    private LocalDateTime expiresAt;
+}
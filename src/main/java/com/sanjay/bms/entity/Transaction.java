@@ -11,10 +11,16 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table(name="transactions")
+@Table(name="transactions", indexes = {
+        @Index(name = "idx_transactions_date_id", columnList = "transactionDate, id"),
+        @Index(name = "idx_transactions_account_date_id", columnList = "accountId, transactionDate, id"),
+        @Index(name = "idx_transactions_account_type_date", columnList = "accountId, transactionType, transactionDate")
+})
 public class Transaction {
+    // Pooled sequence ids so inserts can be JDBC-batched (IDENTITY forces one round trip per row)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transactions_seq")
+    @SequenceGenerator(name = "transactions_seq", sequenceName = "transactions_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -60,4 +60,8 @@ public class User {
 
     @Column(nullable = false)
     private Boolean accountLocked = false;
+
+    // Written only by UnreadNotificationCounter; null until first counted
+    @Column(insertable = false, updatable = false)
+    private Long unreadNotificationCount;
 }
\ No newline at end of file
@@ -0,0 +1,13 @@
+package com.sanjay.bms.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Collection;
+
+// Published when balances change; for transfers this includes the counterparty account
+@Getter
+@AllArgsConstructor
+public class AccountBalanceChangedEvent {
+    private final Collection<Long> accountIds;
+}
@@ -0,0 +1,13 @@
+package com.sanjay.bms.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Published when an account is opened, updated, frozen, unfrozen, closed or deleted
+@Getter
+@AllArgsConstructor
+public class AccountStatusChangedEvent {
+    private final Long accountId;
+    private final String username; // Owner, resolved up front since the account may be gone after commit
+    private final String accountStatus;
+}
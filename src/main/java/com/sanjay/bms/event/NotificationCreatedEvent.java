@@ -0,0 +1,13 @@
+package com.sanjay.bms.event;
+
+import com.sanjay.bms.dto.NotificationDto;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Published when a notification is stored; pushed to the user's open streams after commit
+@Getter
+@AllArgsConstructor
+public class NotificationCreatedEvent {
+    private final String username;
+    private final NotificationDto notification;
+}
@@ -0,0 +1,11 @@
+package com.sanjay.bms.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Published when a user's notifications are created or marked as read
+@Getter
+@AllArgsConstructor
+public class NotificationsChangedEvent {
+    private final String username;
+}
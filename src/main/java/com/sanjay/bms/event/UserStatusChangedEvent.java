@@ -0,0 +1,11 @@
+package com.sanjay.bms.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Published when a user is enabled, disabled, locked or unlocked
+@Getter
+@AllArgsConstructor
+public class UserStatusChangedEvent {
+    private final String username;
+}
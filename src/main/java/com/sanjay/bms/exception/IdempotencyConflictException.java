@@ -0,0 +1,7 @@
+package com.sanjay.bms.exception;
+
+public class IdempotencyConflictException extends RuntimeException {
+    public IdempotencyConflictException(String message) {
+        super(message);
+    }
+}
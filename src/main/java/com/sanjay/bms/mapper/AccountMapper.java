@@ -2,6 +2,7 @@ package com.sanjay.bms.mapper;
 
 import com.sanjay.bms.dto.AccountDto;
 import com.sanjay.bms.entity.Account;
+import com.sanjay.bms.repository.AccountRepository;
 
 public class AccountMapper {
 
@@ -24,6 +25,25 @@ public class AccountMapper {
         return dto;
     }
 
+    public static AccountDto mapToAccountDto(AccountRepository.BalanceUpdate update) {
+        AccountDto dto = new AccountDto();
+        dto.setId(update.getId());
+        dto.setAccountNumber(update.getAccountNumber());
+        dto.setMaskedAccountNumber(maskAccountNumber(update.getAccountNumber()));
+        dto.setAccountHolderName(update.getAccountHolderName());
+        dto.setAccountType(update.getAccountType());
+        dto.setBalance(update.getBalance());
+        dto.setAccountStatus(update.getAccountStatus());
+        dto.setCreatedAt(update.getCreatedAt());
+        dto.setLastTransactionDate(update.getLastTransactionDate());
+        dto.setDailyTransactionLimit(update.getDailyTransactionLimit());
+        dto.setPerTransactionLimit(update.getPerTransactionLimit());
+        dto.setInterestRate(update.getInterestRate());
+        dto.setMinimumBalance(update.getMinimumBalance());
+        dto.setUserId(update.getUserId());
+        return dto;
+    }
+
     public static Account mapToAccount(AccountDto accountDto) {
         Account account = new Account();
         account.setId(accountDto.getId());
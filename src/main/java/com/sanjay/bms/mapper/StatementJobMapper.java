@@ -0,0 +1,25 @@
+package com.sanjay.bms.mapper;
+
+import com.sanjay.bms.dto.StatementJobDto;
+import com.sanjay.bms.entity.StatementJob;
+
+public class StatementJobMapper {
+
+    public static StatementJobDto mapToStatementJobDto(StatementJob job) {
+        StatementJobDto dto = new StatementJobDto();
+        dto.setJobId(job.getId());
+        dto.setAccountId(job.getAccountId());
+        dto.setStartDate(job.getStartDate());
+        dto.setEndDate(job.getEndDate());
+        dto.setFormat(job.getFormat());
+        dto.setStatus(job.getStatus());
+        dto.setPreRendered(Boolean.TRUE.equals(job.getPreRendered()));
+        dto.setChecksum(job.getChecksum());
+        dto.setSizeBytes(job.getSizeBytes());
+        dto.setErrorMessage(job.getErrorMessage());
+        dto.setCreatedAt(job.getCreatedAt());
+        dto.setCompletedAt(job.getCompletedAt());
+        dto.setExpiresAt(job.getExpiresAt());
+        return dto;
+    }
+}
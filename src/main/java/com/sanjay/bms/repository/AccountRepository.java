@@ -1,25 +1,66 @@
 package com.sanjay.bms.repository;
 
 import com.sanjay.bms.entity.Account;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface AccountRepository extends JpaRepository<Account, Long> {
     Optional<Account> findByAccountNumber(String accountNumber);
+
+    // Rows of [accountNumber, id]
+    @Query("SELECT a.accountNumber, a.id FROM Account a WHERE a.accountNumber IN :accountNumbers")
+    List<Object[]> findIdsByAccountNumberIn(@Param("accountNumbers") Collection<String> accountNumbers);
+
+    @Query("SELECT a.accountNumber FROM Account a WHERE a.accountNumber BETWEEN :first AND :last")
+    List<String> findAccountNumbersBetween(@Param("first") String first, @Param("last") String last);
+
+    @Query("SELECT DISTINCT a.user.username FROM Account a WHERE a.id IN :ids")
+    List<String> findOwnerUsernames(@Param("ids") Collection<Long> ids);
     List<Account> findByAccountTypeIgnoreCase(String accountType);
     List<Account> findByBalanceGreaterThanEqual(BigDecimal balance);
 
     // FIXED: Added this method
     List<Account> findByUser_Id(Long userId);
 
+    @Query("SELECT a.id FROM Account a WHERE a.user.username = :username")
+    List<Long> findIdsByUsername(@Param("username") String username);
+
    // List<Account> findByUserId(Long userId);
     List<Account> findByAccountStatus(String status);
 
+    // Rows of [accountType, accountStatus, count, sum, min, max] balance
+    @Query("SELECT a.accountType, a.accountStatus, COUNT(a), SUM(a.balance), MIN(a.balance), MAX(a.balance) " +
+            "FROM Account a GROUP BY a.accountType, a.accountStatus")
+    List<Object[]> aggregateByTypeAndStatus();
+
+    // Rows of [id, accountNumber, accountHolderName, accountType] for the directory index
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT a.id, a.accountNumber, a.accountHolderName, a.accountType FROM Account a " +
+            "WHERE a.accountStatus = 'Active'")
+    Stream<Object[]> streamActiveDirectoryRows();
+
+    // Same rows for accounts after the given id, in id order, for the directory catch-up
+    @Query("SELECT a.id, a.accountNumber, a.accountHolderName, a.accountType FROM Account a " +
+            "WHERE a.accountStatus = 'Active' AND a.id > :afterId ORDER BY a.id")
+    List<Object[]> findActiveDirectoryRowsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Used only until the directory index has been loaded
+    @Query("SELECT a FROM Account a WHERE a.accountStatus = 'Active' " +
+            "AND (a.accountNumber LIKE CONCAT(:query, '%') OR LOWER(a.accountHolderName) LIKE CONCAT('%', LOWER(:query), '%'))")
+    List<Account> searchActiveDirectory(@Param("query") String query, Pageable pageable);
+
     @Query("SELECT COUNT(a) FROM Account a WHERE a.accountStatus = :status")
     Long countByStatus(@Param("status") String status);
 
@@ -27,4 +68,66 @@ public interface AccountRepository extends JpaRepository<Account, Long> {
     BigDecimal getTotalActiveBalance();
 
     Long countByAccountStatus(String active);
-}
\ No newline at end of file
+
+    @Query("SELECT COUNT(a) FROM Account a WHERE a.createdAt >= :startDate AND a.createdAt < :endDate")
+    Long countCreatedBetween(
+            @Param("startDate") LocalDateTime startDate,
+            @Param("endDate") LocalDateTime endDate);
+
+    @Query("SELECT COALESCE(SUM(a.balance), 0) FROM Account a")
+    BigDecimal getTotalBalance();
+
+    // Rows of [accountStatus, count]
+    @Query("SELECT a.accountStatus, COUNT(a) FROM Account a GROUP BY a.accountStatus")
+    List<Object[]> countGroupedByStatus();
+
+    /**
+     * Applies a signed balance change in one statement. The row is only updated when the
+     * caller owns the account (or is an admin), the account is active and, for debits,
+     * the per-transaction limit and minimum balance still hold. Empty when rejected.
+     * Returns the updated account and its owner, so callers need no further reads.
+     */
+    @Query(value = "UPDATE accounts a SET balance = a.balance + :delta, " +
+            "last_transaction_date = :now, version = a.version + 1 " +
+            "FROM accounts old, users u, users owner " +
+            "WHERE a.id = :id AND old.id = a.id AND u.username = :username AND owner.id = a.user_id " +
+            "AND (a.user_id = u.id OR u.role = 'ADMIN') " +
+            "AND a.account_status = 'Active' " +
+            "AND (:delta >= 0 OR (a.per_transaction_limit + :delta >= 0 " +
+            "AND a.balance + :delta >= COALESCE(a.minimum_balance, 0))) " +
+            "RETURNING a.id AS \"id\", a.account_number AS \"accountNumber\", " +
+            "a.account_holder_name AS \"accountHolderName\", a.account_type AS \"accountType\", " +
+            "a.balance AS \"balance\", a.account_status AS \"accountStatus\", a.created_at AS \"createdAt\", " +
+            "a.last_transaction_date AS \"lastTransactionDate\", " +
+            "a.daily_transaction_limit AS \"dailyTransactionLimit\", " +
+            "a.per_transaction_limit AS \"perTransactionLimit\", a.interest_rate AS \"interestRate\", " +
+            "a.minimum_balance AS \"minimumBalance\", a.user_id AS \"userId\", " +
+            "owner.username AS \"ownerUsername\", owner.email AS \"ownerEmail\", " +
+            "(old.last_transaction_date IS NULL OR old.last_transaction_date < :startOfDay) AS \"firstToday\"",
+            nativeQuery = true)
+    Optional<BalanceUpdate> applyBalanceDelta(
+            @Param("id") Long id,
+            @Param("delta") BigDecimal delta,
+            @Param("username") String username,
+            @Param("now") LocalDateTime now,
+            @Param("startOfDay") LocalDateTime startOfDay);
+
+    interface BalanceUpdate {
+        Long getId();
+        String getAccountNumber();
+        String getAccountHolderName();
+        String getAccountType();
+        BigDecimal getBalance();
+        String getAccountStatus();
+        LocalDateTime getCreatedAt();
+        LocalDateTime getLastTransactionDate();
+        BigDecimal getDailyTransactionLimit();
+        BigDecimal getPerTransactionLimit();
+        BigDecimal getInterestRate();
+        BigDecimal getMinimumBalance();
+        Long getUserId();
+        String getOwnerUsername();
+        String getOwnerEmail();
+        Boolean getFirstToday(); // No earlier transaction on this account today
+    }
+}
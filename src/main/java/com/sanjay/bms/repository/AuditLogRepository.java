@@ -11,6 +11,8 @@ import java.util.List;
 public interface AuditLogRepository extends JpaRepository<AuditLog, Long> {
     List<AuditLog> findByUsernameOrderByTimestampDesc(String username);
     List<AuditLog> findBySeverityOrderByTimestampDesc(String severity);
+    List<AuditLog> findTop10BySeverityOrderByTimestampDesc(String severity);
+    Long countBySeverity(String severity);
     List<AuditLog> findByTimestampBetweenOrderByTimestampDesc(LocalDateTime start, LocalDateTime end);
 
     // FIXED: Changed table name from 'audit_log' to 'audit_logs' to match entity
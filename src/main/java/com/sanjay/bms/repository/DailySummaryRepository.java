@@ -0,0 +1,62 @@
+package com.sanjay.bms.repository;
+
+import com.sanjay.bms.entity.DailySummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public interface DailySummaryRepository extends JpaRepository<DailySummary, LocalDate> {
+
+    // Adds the in-memory deltas onto the day's row, creating it on first flush
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO daily_summaries (summary_date, total_transactions, total_transaction_amount, " +
+            "deposits_count, deposits_amount, withdrawals_count, withdrawals_amount, transfers_count, " +
+            "transfers_amount, new_accounts, new_users, active_accounts, net_flow, updated_at) " +
+            "VALUES (:#{#delta.summaryDate}, :#{#delta.totalTransactions}, :#{#delta.totalTransactionAmount}, " +
+            ":#{#delta.depositsCount}, :#{#delta.depositsAmount}, :#{#delta.withdrawalsCount}, " +
+            ":#{#delta.withdrawalsAmount}, :#{#delta.transfersCount}, :#{#delta.transfersAmount}, " +
+            ":#{#delta.newAccounts}, :#{#delta.newUsers}, :#{#delta.activeAccounts}, :#{#delta.netFlow}, " +
+            ":#{#delta.updatedAt}) " +
+            "ON CONFLICT (summary_date) DO UPDATE SET " +
+            "total_transactions = daily_summaries.total_transactions + EXCLUDED.total_transactions, " +
+            "total_transaction_amount = daily_summaries.total_transaction_amount + EXCLUDED.total_transaction_amount, " +
+            "deposits_count = daily_summaries.deposits_count + EXCLUDED.deposits_count, " +
+            "deposits_amount = daily_summaries.deposits_amount + EXCLUDED.deposits_amount, " +
+            "withdrawals_count = daily_summaries.withdrawals_count + EXCLUDED.withdrawals_count, " +
+            "withdrawals_amount = daily_summaries.withdrawals_amount + EXCLUDED.withdrawals_amount, " +
+            "transfers_count = daily_summaries.transfers_count + EXCLUDED.transfers_count, " +
+            "transfers_amount = daily_summaries.transfers_amount + EXCLUDED.transfers_amount, " +
+            "new_accounts = daily_summaries.new_accounts + EXCLUDED.new_accounts, " +
+            "new_users = daily_summaries.new_users + EXCLUDED.new_users, " +
+            "active_accounts = daily_summaries.active_accounts + EXCLUDED.active_accounts, " +
+            "net_flow = daily_summaries.net_flow + EXCLUDED.net_flow, " +
+            "updated_at = EXCLUDED.updated_at",
+            nativeQuery = true)
+    void addDelta(@Param("delta") DailySummary delta);
+
+    // Creates a rebuilt row unless a flush or another node got there first
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO daily_summaries (summary_date, total_transactions, total_transaction_amount, " +
+            "deposits_count, deposits_amount, withdrawals_count, withdrawals_amount, transfers_count, " +
+            "transfers_amount, new_accounts, new_users, active_accounts, net_flow, updated_at) " +
+            "VALUES (:#{#row.summaryDate}, :#{#row.totalTransactions}, :#{#row.totalTransactionAmount}, " +
+            ":#{#row.depositsCount}, :#{#row.depositsAmount}, :#{#row.withdrawalsCount}, " +
+            ":#{#row.withdrawalsAmount}, :#{#row.transfersCount}, :#{#row.transfersAmount}, " +
+            ":#{#row.newAccounts}, :#{#row.newUsers}, :#{#row.activeAccounts}, :#{#row.netFlow}, " +
+            ":#{#row.updatedAt}) " +
+            "ON CONFLICT (summary_date) DO NOTHING",
+            nativeQuery = true)
+    int insertIfAbsent(@Param("row") DailySummary row);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE DailySummary d SET d.closingBalance = :balance WHERE d.summaryDate = :date")
+    int setClosingBalance(@Param("date") LocalDate date, @Param("balance") BigDecimal balance);
+}
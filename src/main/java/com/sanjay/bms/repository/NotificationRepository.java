@@ -2,17 +2,56 @@ package com.sanjay.bms.repository;
 
 import com.sanjay.bms.entity.Notification;
 import com.sanjay.bms.entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 public interface NotificationRepository extends JpaRepository<Notification, Long> {
     List<Notification> findByUserAndIsReadFalseOrderByCreatedAtDesc(User user);
     List<Notification> findByUserOrderByCreatedAtDesc(User user);
-    List<Notification> findByUserAndIsReadFalse(User user);
 
     @Query("SELECT COUNT(n) FROM Notification n WHERE n.user = :user AND n.isRead = false")
     Long countUnreadByUser(@Param("user") User user);
+
+    // Only flips a notification that is still unread, so each one is counted down once
+    @Modifying
+    @Query("UPDATE Notification n SET n.isRead = true, n.readAt = :readAt WHERE n.id = :id AND n.isRead = false")
+    int markAsRead(@Param("id") Long id, @Param("readAt") LocalDateTime readAt);
+
+    // One statement for read-all, however many notifications are unread
+    @Modifying
+    @Query("UPDATE Notification n SET n.isRead = true, n.readAt = :readAt WHERE n.user = :user AND n.isRead = false")
+    int markAllAsRead(@Param("user") User user, @Param("readAt") LocalDateTime readAt);
+
+    // Deletes only the owner's notification and reports whether it was read at that moment,
+    // so a concurrent mark-as-read cannot make the unread count go down twice. Empty when not found
+    @Query(value = "DELETE FROM notifications n USING users u " +
+            "WHERE n.id = :id AND n.user_id = u.id AND u.username = :username " +
+            "RETURNING COALESCE(n.is_read, false)",
+            nativeQuery = true)
+    Optional<Boolean> deleteOwned(@Param("id") Long id, @Param("username") String username);
+
+    // Keyset pagination over (createdAt, id), newest first
+    @Query("SELECT n FROM Notification n WHERE n.user = :user AND (:unreadOnly = false OR n.isRead = false) " +
+            "ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findFirstPage(
+            @Param("user") User user,
+            @Param("unreadOnly") boolean unreadOnly,
+            Pageable pageable);
+
+    @Query("SELECT n FROM Notification n WHERE n.user = :user AND (:unreadOnly = false OR n.isRead = false) " +
+            "AND (n.createdAt < :cursorDate OR (n.createdAt = :cursorDate AND n.id < :cursorId)) " +
+            "ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findPageBefore(
+            @Param("user") User user,
+            @Param("unreadOnly") boolean unreadOnly,
+            @Param("cursorDate") LocalDateTime cursorDate,
+            @Param("cursorId") Long cursorId,
+            Pageable pageable);
 }
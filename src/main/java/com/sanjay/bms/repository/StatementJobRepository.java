@@ -0,0 +1,78 @@
+package com.sanjay.bms.repository;
+
+import com.sanjay.bms.entity.StatementJob;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface StatementJobRepository extends JpaRepository<StatementJob, String> {
+
+    List<StatementJob> findTop50ByUsernameOrderByCreatedAtDesc(String username);
+
+    // An existing job for the same statement that is still usable
+    @Query("SELECT j FROM StatementJob j WHERE j.accountId = :accountId AND j.format = :format " +
+            "AND j.startDate = :startDate AND j.endDate = :endDate " +
+            "AND j.status IN ('PENDING', 'QUEUED', 'RUNNING', 'COMPLETED') " +
+            "AND (j.expiresAt IS NULL OR j.expiresAt > :now) ORDER BY j.createdAt DESC")
+    List<StatementJob> findReusable(
+            @Param("accountId") Long accountId,
+            @Param("format") String format,
+            @Param("startDate") LocalDateTime startDate,
+            @Param("endDate") LocalDateTime endDate,
+            @Param("now") LocalDateTime now,
+            Pageable pageable);
+
+    // User requests first, then month-end pre-renders, oldest first
+    @Query("SELECT j.id FROM StatementJob j WHERE j.status = 'PENDING' " +
+            "ORDER BY j.preRendered ASC, j.createdAt ASC")
+    List<String> findPendingIds(Pageable pageable);
+
+    // Leaves one live job per statement, preferring one already being rendered, so the
+    // unique index on live jobs can be built over rows queued before it existed
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE statement_jobs SET status = 'FAILED', owner_node = NULL, lease_expires_at = NULL, " +
+            "error_message = 'Duplicate of another job for the same statement' " +
+            "WHERE status IN ('PENDING', 'QUEUED', 'RUNNING') AND id NOT IN (" +
+            "SELECT DISTINCT ON (account_id, format, start_date, end_date) id FROM statement_jobs " +
+            "WHERE status IN ('PENDING', 'QUEUED', 'RUNNING') " +
+            "ORDER BY account_id, format, start_date, end_date, status = 'PENDING', created_at)",
+            nativeQuery = true)
+    int failDuplicateLiveJobs();
+
+    // Claims a job for this node; returns 0 when someone else already moved it on
+    @Transactional
+    @Modifying
+    @Query("UPDATE StatementJob j SET j.status = :to, j.ownerNode = :node, j.leaseExpiresAt = :leaseExpiresAt " +
+            "WHERE j.id = :id AND j.status = :from")
+    int transition(@Param("id") String id,
+                   @Param("from") String from,
+                   @Param("to") String to,
+                   @Param("node") String node,
+                   @Param("leaseExpiresAt") LocalDateTime leaseExpiresAt);
+
+    // Heartbeat: keeps the jobs a live node is holding from being requeued
+    @Transactional
+    @Modifying
+    @Query("UPDATE StatementJob j SET j.leaseExpiresAt = :leaseExpiresAt " +
+            "WHERE j.ownerNode = :node AND j.status IN ('QUEUED', 'RUNNING')")
+    int renewLeases(@Param("node") String node, @Param("leaseExpiresAt") LocalDateTime leaseExpiresAt);
+
+    // Jobs whose owner stopped renewing their lease go back to PENDING
+    @Transactional
+    @Modifying
+    @Query("UPDATE StatementJob j SET j.status = 'PENDING', j.ownerNode = null, j.leaseExpiresAt = null " +
+            "WHERE j.status IN ('QUEUED', 'RUNNING') AND (j.leaseExpiresAt IS NULL OR j.leaseExpiresAt < :now)")
+    int requeueExpired(@Param("now") LocalDateTime now);
+
+    List<StatementJob> findByStatusAndExpiresAtBefore(String status, LocalDateTime now);
+
+    Optional<StatementJob> findByIdAndUsername(String id, String username);
+}
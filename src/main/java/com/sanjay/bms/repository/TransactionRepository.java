@@ -1,16 +1,27 @@
 package com.sanjay.bms.repository;
 
+import com.sanjay.bms.dto.TransactionDto;
 import com.sanjay.bms.entity.Transaction;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface TransactionRepository extends JpaRepository<Transaction, Long> {
+public interface TransactionRepository extends JpaRepository<Transaction, Long>,
+        JpaSpecificationExecutor<Transaction> {
     List<Transaction> findByAccountIdOrderByTransactionDateDesc(Long accountId);
     List<Transaction> findTop50ByOrderByTransactionDateDesc();
     List<Transaction> findByTransactionType(String transactionType);
@@ -19,6 +30,12 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
     // FIXED: Added missing methods
     Optional<Transaction> findByReferenceNumber(String referenceNumber);
 
+    // Locks the outgoing leg of a transfer so only one request can complete it
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM Transaction t WHERE t.referenceNumber = :referenceNumber " +
+            "AND t.transactionType = 'TRANSFER_OUT'")
+    Optional<Transaction> findTransferOutForUpdate(@Param("referenceNumber") String referenceNumber);
+
     List<Transaction> findByAccountIdInOrderByTransactionDateDesc(List<Long> accountIds);
 
     @Query("SELECT t FROM Transaction t WHERE t.accountId IN :accountIds " +
@@ -32,6 +49,25 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
     @Query("SELECT COUNT(t) FROM Transaction t WHERE t.transactionDate >= :startDate")
     Long countTransactionsSince(@Param("startDate") LocalDateTime startDate);
 
+    // Single row of [count, volume]
+    @Query("SELECT COUNT(t), COALESCE(SUM(t.amount), 0) FROM Transaction t WHERE t.transactionDate >= :startDate")
+    List<Object[]> getCountAndVolumeSince(@Param("startDate") LocalDateTime startDate);
+
+    // Rows of [transactionType, count, amount] for successful transactions in the window
+    @Query("SELECT t.transactionType, COUNT(t), COALESCE(SUM(t.amount), 0) FROM Transaction t " +
+            "WHERE t.transactionDate >= :startDate AND t.transactionDate < :endDate " +
+            "AND t.status = 'SUCCESS' GROUP BY t.transactionType")
+    List<Object[]> sumByTypeBetween(
+            @Param("startDate") LocalDateTime startDate,
+            @Param("endDate") LocalDateTime endDate);
+
+    @Query("SELECT COUNT(DISTINCT t.accountId) FROM Transaction t " +
+            "WHERE t.transactionDate >= :startDate AND t.transactionDate < :endDate " +
+            "AND t.status = 'SUCCESS'")
+    Long countActiveAccountsBetween(
+            @Param("startDate") LocalDateTime startDate,
+            @Param("endDate") LocalDateTime endDate);
+
     @Query("SELECT t FROM Transaction t WHERE t.accountId = :accountId " +
             "AND t.transactionDate BETWEEN :startDate AND :endDate")
     List<Transaction> findByAccountIdAndDateRange(
@@ -41,7 +77,7 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
 
     @Query("SELECT t FROM Transaction t WHERE t.amount >= :minAmount " +
             "AND t.status = 'SUCCESS' ORDER BY t.transactionDate DESC")
-    List<Transaction> findHighValueTransactions(@Param("minAmount") BigDecimal minAmount);
+    List<Transaction> findHighValueTransactions(@Param("minAmount") BigDecimal minAmount, Pageable pageable);
 
     @Query("SELECT SUM(t.amount) FROM Transaction t WHERE t.transactionDate >= :startDate " +
             "AND t.transactionType = :type AND t.status = 'SUCCESS'")
@@ -54,4 +90,96 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
     Long countTransactionsBetween(
             @Param("startDate") LocalDateTime startDate,
             @Param("endDate") LocalDateTime endDate);
+
+    // Keyset pagination over (transactionDate, id), newest first
+    @Query("SELECT t FROM Transaction t ORDER BY t.transactionDate DESC, t.id DESC")
+    List<Transaction> findFirstPage(Pageable pageable);
+
+    @Query("SELECT t FROM Transaction t WHERE t.transactionDate < :cursorDate " +
+            "OR (t.transactionDate = :cursorDate AND t.id < :cursorId) " +
+            "ORDER BY t.transactionDate DESC, t.id DESC")
+    List<Transaction> findPageBefore(
+            @Param("cursorDate") LocalDateTime cursorDate,
+            @Param("cursorId") Long cursorId,
+            Pageable pageable);
+
+    /**
+     * Ranked search over description and reference number. The tsvector expression must
+     * stay identical to idx_transactions_search_fts (see TransactionSearchIndexInitializer)
+     * for the GIN index to be used; the ILIKE branches use the trigram indexes and keep
+     * the old substring behaviour for partial references.
+     */
+    @Query(value = "SELECT t.* FROM transactions t " +
+            "WHERE t.account_id IN (:accountIds) " +
+            "AND (to_tsvector('simple', coalesce(t.description, '') || ' ' || coalesce(t.reference_number, '')) " +
+            "@@ to_tsquery('simple', :tsQuery) " +
+            "OR t.reference_number ILIKE :pattern OR t.description ILIKE :pattern) " +
+            "ORDER BY (upper(t.reference_number) = upper(:term)) DESC, " +
+            "ts_rank(to_tsvector('simple', coalesce(t.description, '') || ' ' || coalesce(t.reference_number, '')), " +
+            "to_tsquery('simple', :tsQuery)) DESC, " +
+            "t.transaction_date DESC, t.id DESC " +
+            "LIMIT :limit OFFSET :offset", nativeQuery = true)
+    List<Transaction> search(
+            @Param("accountIds") List<Long> accountIds,
+            @Param("tsQuery") String tsQuery,
+            @Param("pattern") String pattern,
+            @Param("term") String term,
+            @Param("limit") int limit,
+            @Param("offset") int offset);
+
+    // Rows of [transactionDate, amount] for outgoing money, used to rebuild daily limit windows
+    @Query("SELECT t.transactionDate, t.amount FROM Transaction t WHERE t.accountId = :accountId " +
+            "AND t.transactionType IN ('WITHDRAW', 'TRANSFER_OUT') AND t.status = 'SUCCESS' " +
+            "AND t.transactionDate >= :since")
+    List<Object[]> findDebitsSince(@Param("accountId") Long accountId, @Param("since") LocalDateTime since);
+
+    // Committed outgoing total since the given time; the authoritative daily limit check
+    @Query("SELECT COALESCE(SUM(t.amount), 0) FROM Transaction t WHERE t.accountId = :accountId " +
+            "AND t.transactionType IN ('WITHDRAW', 'TRANSFER_OUT') AND t.status = 'SUCCESS' " +
+            "AND t.transactionDate >= :since")
+    BigDecimal sumDebitsSince(@Param("accountId") Long accountId, @Param("since") LocalDateTime since);
+
+    // Projects straight into DTOs so the persistence context stays empty while streaming
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.sanjay.bms.dto.TransactionDto(t.id, t.transactionType, t.accountId, t.amount, " +
+            "t.balanceAfter, t.description, t.transactionDate, t.referenceNumber, t.toAccountId, t.status) " +
+            "FROM Transaction t ORDER BY t.transactionDate DESC, t.id DESC")
+    Stream<TransactionDto> streamAllAsDto();
+
+    // Keyset page of one account's rows in a date range, oldest first, projected to DTOs
+    @Query("SELECT new com.sanjay.bms.dto.TransactionDto(t.id, t.transactionType, t.accountId, t.amount, " +
+            "t.balanceAfter, t.description, t.transactionDate, t.referenceNumber, t.toAccountId, t.status) " +
+            "FROM Transaction t WHERE t.accountId = :accountId " +
+            "AND t.transactionDate BETWEEN :startDate AND :endDate " +
+            "AND (t.transactionDate > :afterDate OR (t.transactionDate = :afterDate AND t.id > :afterId)) " +
+            "ORDER BY t.transactionDate ASC, t.id ASC")
+    List<TransactionDto> findStatementPage(
+            @Param("accountId") Long accountId,
+            @Param("startDate") LocalDateTime startDate,
+            @Param("endDate") LocalDateTime endDate,
+            @Param("afterDate") LocalDateTime afterDate,
+            @Param("afterId") Long afterId,
+            Pageable pageable);
+
+    // Same rows as findStatementPage, read through a cursor for streaming exports
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.sanjay.bms.dto.TransactionDto(t.id, t.transactionType, t.accountId, t.amount, " +
+            "t.balanceAfter, t.description, t.transactionDate, t.referenceNumber, t.toAccountId, t.status) " +
+            "FROM Transaction t WHERE t.accountId = :accountId " +
+            "AND t.transactionDate BETWEEN :startDate AND :endDate " +
+            "ORDER BY t.transactionDate ASC, t.id ASC")
+    Stream<TransactionDto> streamStatementRows(
+            @Param("accountId") Long accountId,
+            @Param("startDate") LocalDateTime startDate,
+            @Param("endDate") LocalDateTime endDate);
+
+    // Moves the id sequence past rows written while ids still came from the identity column.
+    // Only ever calls nextval, so a node allocating ids at the same time can never be handed
+    // a block twice; once aligned this is a no-op.
+    @Transactional
+    @Query(value = "SELECT COUNT(nextval('transactions_seq')) FROM generate_series(1, (" +
+            "SELECT CAST(CEIL((m.max_id - s.last_value) / CAST(p.increment_by AS numeric)) AS integer) + 1 " +
+            "FROM (SELECT MAX(id) AS max_id FROM transactions) m, transactions_seq s, pg_sequences p " +
+            "WHERE p.sequencename = 'transactions_seq' AND m.max_id > s.last_value))", nativeQuery = true)
+    Long alignIdSequence();
 }
@@ -0,0 +1,68 @@
+package com.sanjay.bms.repository;
+
+import com.sanjay.bms.entity.Transaction;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+/**
+ * Building blocks for dynamic transaction queries. Each method returns null when its
+ * argument is absent, which Specification.allOf/and simply skip.
+ */
+public final class TransactionSpecifications {
+
+    private TransactionSpecifications() {
+    }
+
+    public static Specification<Transaction> accountIn(Collection<Long> accountIds) {
+        return (root, query, cb) -> root.get("accountId").in(accountIds);
+    }
+
+    public static Specification<Transaction> hasType(String transactionType) {
+        return transactionType == null ? null
+                : (root, query, cb) -> cb.equal(root.get("transactionType"), transactionType);
+    }
+
+    public static Specification<Transaction> hasStatus(String status) {
+        return status == null ? null
+                : (root, query, cb) -> cb.equal(root.get("status"), status);
+    }
+
+    public static Specification<Transaction> amountAtLeast(BigDecimal minAmount) {
+        return minAmount == null ? null
+                : (root, query, cb) -> cb.greaterThanOrEqualTo(root.<BigDecimal>get("amount"), minAmount);
+    }
+
+    public static Specification<Transaction> amountAtMost(BigDecimal maxAmount) {
+        return maxAmount == null ? null
+                : (root, query, cb) -> cb.lessThanOrEqualTo(root.<BigDecimal>get("amount"), maxAmount);
+    }
+
+    public static Specification<Transaction> dateFrom(LocalDateTime startDate) {
+        return startDate == null ? null
+                : (root, query, cb) -> cb.greaterThanOrEqualTo(root.<LocalDateTime>get("transactionDate"), startDate);
+    }
+
+    public static Specification<Transaction> dateTo(LocalDateTime endDate) {
+        return endDate == null ? null
+                : (root, query, cb) -> cb.lessThanOrEqualTo(root.<LocalDateTime>get("transactionDate"), endDate);
+    }
+
+    /**
+     * Keyset condition for the page after (value, id) when sorting by the given field
+     * with id as the tie-breaker: rows strictly after the cursor in that order.
+     */
+    public static <T extends Comparable<? super T>> Specification<Transaction> after(
+            String field, T value, Long id, boolean descending) {
+        if (value == null) {
+            return null;
+        }
+        return (root, query, cb) -> descending
+                ? cb.or(cb.lessThan(root.<T>get(field), value),
+                        cb.and(cb.equal(root.<T>get(field), value), cb.lessThan(root.<Long>get("id"), id)))
+                : cb.or(cb.greaterThan(root.<T>get(field), value),
+                        cb.and(cb.equal(root.<T>get(field), value), cb.greaterThan(root.<Long>get("id"), id)));
+    }
+}
@@ -2,8 +2,10 @@ package com.sanjay.bms.repository;
 
 import com.sanjay.bms.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -22,4 +24,19 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     @Query("SELECT COUNT(u) FROM User u WHERE u.createdAt >= :startDate")
     Long countNewUsersSince(@Param("startDate") LocalDateTime startDate);
-}
\ No newline at end of file
+
+    @Query("SELECT COUNT(u) FROM User u WHERE u.createdAt >= :startDate AND u.createdAt < :endDate")
+    Long countCreatedBetween(
+            @Param("startDate") LocalDateTime startDate,
+            @Param("endDate") LocalDateTime endDate);
+
+    @Query("SELECT u.unreadNotificationCount FROM User u WHERE u.username = :username")
+    Long findUnreadNotificationCount(@Param("username") String username);
+
+    // A NULL count stays NULL (NULL + delta) until it is seeded; the row is locked either way
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE users SET unread_notification_count = unread_notification_count + :delta " +
+            "WHERE username = :username", nativeQuery = true)
+    int adjustUnreadNotificationCount(@Param("username") String username, @Param("delta") long delta);
+}
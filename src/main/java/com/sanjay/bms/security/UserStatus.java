@@ -0,0 +1,24 @@
+package com.sanjay.bms.security;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+// What request authentication needs to know about a user, small enough to cache
+@Getter
+@AllArgsConstructor
+public class UserStatus {
+    private final boolean enabled;
+    private final boolean locked;
+    private final LocalDateTime lockedUntil;
+    private final String role;
+
+    public boolean isActive() {
+        if (!enabled) {
+            return false;
+        }
+        // A lock with an end date that has passed no longer applies
+        return !locked || (lockedUntil != null && lockedUntil.isBefore(LocalDateTime.now()));
+    }
+}
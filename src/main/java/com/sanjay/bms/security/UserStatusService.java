@@ -0,0 +1,41 @@
+package com.sanjay.bms.security;
+
+import com.sanjay.bms.event.UserStatusChangedEvent;
+import com.sanjay.bms.repository.UserRepository;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Short-lived cache of user status for request authentication, so a valid JWT
+ * does not cost a database round trip. Entries are evicted as soon as an admin
+ * change commits; the cache TTL bounds staleness on other instances.
+ */
+@Slf4j
+@AllArgsConstructor
+@Service
+public class UserStatusService {
+
+    private final UserRepository userRepository;
+
+    // Returns null for unknown users
+    @Cacheable(value = "userStatus", key = "#username")
+    public UserStatus getStatus(String username) {
+        return userRepository.findByUsername(username)
+                .map(user -> new UserStatus(
+                        Boolean.TRUE.equals(user.getEnabled()),
+                        Boolean.TRUE.equals(user.getAccountLocked()),
+                        user.getAccountLockedUntil(),
+                        user.getRole()))
+                .orElse(null);
+    }
+
+    @CacheEvict(value = "userStatus", key = "#event.username")
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserStatusChanged(UserStatusChangedEvent event) {
+        log.debug("User status cache evicted for {}", event.getUsername());
+    }
+}
@@ -0,0 +1,439 @@
+package com.sanjay.bms.service;
+
+import com.sanjay.bms.dto.AccountDirectoryDto;
+import com.sanjay.bms.entity.Account;
+import com.sanjay.bms.event.AccountStatusChangedEvent;
+import com.sanjay.bms.repository.AccountRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * In-memory index of active accounts for the transfer-recipient autocomplete.
+ *
+ * Account numbers are kept in a sorted map, so a prefix lookup is a range scan that
+ * stops after the requested number of hits. Holder names are split into trigrams with
+ * a posting list per trigram; a query only looks at the shortest posting lists that
+ * can still produce a match, then scores those candidates, which also tolerates small
+ * typos. Short (1-2 character) queries match the start of a name word instead.
+ *
+ * The index is loaded once the application is ready and then updated from
+ * AccountStatusChangedEvent after each commit. Those events are only seen by the node
+ * that made the change, so accounts opened on other nodes are picked up by a frequent
+ * catch-up that reads accounts with ids past the newest one indexed, and accounts frozen
+ * or closed elsewhere drop out at the next periodic rebuild. Until it is loaded, searches
+ * fall back to a bounded database query.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class AccountDirectoryIndex {
+
+    private static final int GRAM = 3;
+    private static final double MIN_SIMILARITY = 0.7;
+    private static final int MAX_CANDIDATES = 20000;
+    private static final int CATCH_UP_PAGE = 1000;
+    // Ids are handed out before commit, so a slightly lower id can become visible later
+    private static final long CATCH_UP_LOOKBACK_IDS = 1000;
+
+    private final AccountRepository accountRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Index index = new Index();
+    private volatile boolean ready;
+
+    // Accounts changed while a rebuild or catch-up was reading the table
+    private Set<Long> changedDuringLoad;
+    // One rebuild or catch-up at a time
+    private final Object loadLock = new Object();
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Best matches first: account number prefixes, then names containing the query,
+     * then fuzzy name matches. At most limit results.
+     */
+    public List<AccountDirectoryDto> search(String query, int limit) {
+        String numberKey = numberKey(query);
+        String name = normalizeName(query);
+
+        lock.readLock().lock();
+        try {
+            Map<Integer, Double> scores = new HashMap<>();
+            if (!numberKey.isEmpty()) {
+                for (Entry entry : index.byNumber.subMap(numberKey, true, numberKey + Character.MAX_VALUE, false)
+                        .values()) {
+                    if (scores.size() >= limit) {
+                        break;
+                    }
+                    scores.put(entry.slot, numberKey.length() == entry.numberKey.length() ? 4.0 : 3.0);
+                }
+            }
+            if (!name.isEmpty()) {
+                index.scoreNames(name, scores);
+            }
+
+            return scores.entrySet().stream()
+                    .sorted(Map.Entry.<Integer, Double>comparingByValue().reversed()
+                            .thenComparing(e -> index.slots[e.getKey()].holderName, String.CASE_INSENSITIVE_ORDER))
+                    .limit(limit)
+                    .map(e -> index.slots[e.getKey()].toDto())
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        rebuild();
+    }
+
+    // Removed accounts leave gaps in the posting lists; compact once they pile up
+    @Scheduled(fixedDelayString = "${banking.directory.compact-interval-ms:600000}")
+    public void compactIfNeeded() {
+        boolean needed;
+        lock.readLock().lock();
+        try {
+            needed = ready && index.deadSlots > 1000 && index.deadSlots > index.byId.size() / 5;
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (needed) {
+            rebuild();
+        }
+    }
+
+    // Accounts opened on other nodes
+    @Scheduled(fixedDelayString = "${banking.directory.catch-up-interval-ms:30000}")
+    public void catchUp() {
+        if (!ready) {
+            return;
+        }
+        synchronized (loadLock) {
+            long afterId;
+            lock.writeLock().lock();
+            try {
+                changedDuringLoad = new HashSet<>();
+                afterId = Math.max(0, index.maxId - CATCH_UP_LOOKBACK_IDS);
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            List<Object[]> rows = new ArrayList<>();
+            try {
+                List<Object[]> page;
+                do {
+                    page = accountRepository.findActiveDirectoryRowsAfter(afterId, PageRequest.of(0, CATCH_UP_PAGE));
+                    rows.addAll(page);
+                    if (!page.isEmpty()) {
+                        afterId = (Long) page.get(page.size() - 1)[0];
+                    }
+                } while (page.size() == CATCH_UP_PAGE);
+            } catch (RuntimeException e) {
+                log.warn("Account directory catch-up failed: {}", e.getMessage());
+            }
+
+            int added = 0;
+            lock.writeLock().lock();
+            try {
+                // Changes seen meanwhile were applied from their events and win over these rows
+                Set<Long> changed = changedDuringLoad;
+                changedDuringLoad = null;
+                for (Object[] row : rows) {
+                    Long id = (Long) row[0];
+                    if (!changed.contains(id) && !index.byId.containsKey(id)) {
+                        index.add(id, (String) row[1], (String) row[2], (String) row[3]);
+                        added++;
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            if (added > 0) {
+                log.debug("Account directory caught up with {} accounts opened elsewhere", added);
+            }
+        }
+    }
+
+    // Drops accounts frozen or closed on other nodes
+    @Scheduled(fixedDelayString = "${banking.directory.rebuild-interval-ms:900000}",
+            initialDelayString = "${banking.directory.rebuild-interval-ms:900000}")
+    public void refresh() {
+        if (ready) {
+            rebuild();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStatusChanged(AccountStatusChangedEvent event) {
+        Account account = accountRepository.findById(event.getAccountId()).orElse(null);
+        lock.writeLock().lock();
+        try {
+            if (changedDuringLoad != null) {
+                changedDuringLoad.add(event.getAccountId());
+            }
+            index.remove(event.getAccountId());
+            if (account != null && "Active".equals(account.getAccountStatus())) {
+                index.add(account.getId(), account.getAccountNumber(), account.getAccountHolderName(),
+                        account.getAccountType());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void rebuild() {
+        synchronized (loadLock) {
+            lock.writeLock().lock();
+            try {
+                changedDuringLoad = new HashSet<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            long started = System.nanoTime();
+            Index fresh = new Index();
+            TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+            readOnly.setReadOnly(true);
+            try {
+                // Streamed, so the accounts table is never loaded into a single list
+                readOnly.executeWithoutResult(status -> {
+                    try (Stream<Object[]> rows = accountRepository.streamActiveDirectoryRows()) {
+                        rows.forEach(row -> fresh.add((Long) row[0], (String) row[1], (String) row[2], (String) row[3]));
+                    }
+                });
+            } catch (RuntimeException e) {
+                lock.writeLock().lock();
+                try {
+                    changedDuringLoad = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                log.error("Account directory index rebuild failed: {}", e.getMessage());
+                return;
+            }
+
+            Set<Long> changed;
+            lock.writeLock().lock();
+            try {
+                changed = changedDuringLoad;
+                changedDuringLoad = null;
+                index = fresh;
+                ready = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            for (Long accountId : changed) {
+                onStatusChanged(new AccountStatusChangedEvent(accountId, null, null));
+            }
+            log.info("Account directory index built with {} accounts in {} ms",
+                    fresh.byId.size(), (System.nanoTime() - started) / 1_000_000);
+        }
+    }
+
+    // Account numbers are matched on their digits, so "AC1234" and "1234" behave the same
+    static String numberKey(String value) {
+        if (value == null) {
+            return "";
+        }
+        String key = value.replaceAll("\\s+", "").toUpperCase();
+        int start = 0;
+        while (start < key.length() && Character.isLetter(key.charAt(start))) {
+            start++;
+        }
+        String digits = key.substring(start);
+        return digits.chars().allMatch(Character::isLetterOrDigit) ? digits : "";
+    }
+
+    static String normalizeName(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.toLowerCase().replaceAll("[^\\p{L}\\p{N}]+", " ").trim();
+    }
+
+    private static Set<String> grams(String normalized) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM <= normalized.length(); i++) {
+            grams.add(normalized.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private static final class Entry {
+        private final int slot;
+        private final long id;
+        private final String accountNumber;
+        private final String numberKey;
+        private final String holderName;
+        private final String accountType;
+        private final String normalizedName;
+
+        private Entry(int slot, long id, String accountNumber, String holderName, String accountType) {
+            this.slot = slot;
+            this.id = id;
+            this.accountNumber = accountNumber;
+            this.numberKey = numberKey(accountNumber);
+            this.holderName = holderName != null ? holderName : "";
+            this.accountType = accountType;
+            this.normalizedName = normalizeName(holderName);
+        }
+
+        private AccountDirectoryDto toDto() {
+            return new AccountDirectoryDto(id, accountNumber, holderName, accountType);
+        }
+    }
+
+    // Growable int array; posting lists hold slots rather than boxed ids
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        private void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+
+    /**
+     * The index proper. Not thread-safe; guarded by the outer lock. Removing an account
+     * clears its slot and leaves the posting lists alone; lookups skip empty slots.
+     */
+    private static final class Index {
+        private Entry[] slots = new Entry[1024];
+        private int slotCount;
+        private int deadSlots;
+        private long maxId; // Highest id ever added
+        private final Map<Long, Entry> byId = new HashMap<>();
+        private final NavigableMap<String, Entry> byNumber = new TreeMap<>();
+        private final Map<String, IntList> byGram = new HashMap<>();
+        private final NavigableMap<String, IntList> byWord = new TreeMap<>();
+
+        private void add(Long id, String accountNumber, String holderName, String accountType) {
+            if (slotCount == slots.length) {
+                slots = Arrays.copyOf(slots, slotCount * 2);
+            }
+            Entry entry = new Entry(slotCount++, id, accountNumber, holderName, accountType);
+            slots[entry.slot] = entry;
+            maxId = Math.max(maxId, id);
+            byId.put(id, entry);
+            if (!entry.numberKey.isEmpty()) {
+                byNumber.put(entry.numberKey, entry);
+            }
+            for (String gram : grams(entry.normalizedName)) {
+                byGram.computeIfAbsent(gram, g -> new IntList()).add(entry.slot);
+            }
+            for (String word : new HashSet<>(Arrays.asList(entry.normalizedName.split(" ")))) {
+                if (!word.isEmpty()) {
+                    byWord.computeIfAbsent(word, w -> new IntList()).add(entry.slot);
+                }
+            }
+        }
+
+        private void remove(Long id) {
+            Entry entry = byId.remove(id);
+            if (entry == null) {
+                return;
+            }
+            slots[entry.slot] = null;
+            byNumber.remove(entry.numberKey, entry);
+            deadSlots++;
+        }
+
+        private void scoreNames(String name, Map<Integer, Double> scores) {
+            if (name.length() < GRAM) {
+                // Too short for trigrams: match the start of any name word
+                for (IntList list : byWord.subMap(name, true, name + Character.MAX_VALUE, false).values()) {
+                    for (int i = 0; i < list.size && scores.size() < MAX_CANDIDATES; i++) {
+                        if (slots[list.values[i]] != null) {
+                            scores.merge(list.values[i], 2.0, Math::max);
+                        }
+                    }
+                    if (scores.size() >= MAX_CANDIDATES) {
+                        return;
+                    }
+                }
+                return;
+            }
+
+            Set<String> queryGrams = grams(name);
+            int needed = Math.max(1, (int) Math.ceil(queryGrams.size() * MIN_SIMILARITY));
+            // A name sharing `needed` grams must appear in at least one of the shortest
+            // (size - needed + 1) posting lists, so only those are scanned
+            List<IntList> lists = new ArrayList<>();
+            int missing = 0;
+            for (String gram : queryGrams) {
+                IntList list = byGram.get(gram);
+                if (list == null) {
+                    missing++;
+                } else {
+                    lists.add(list);
+                }
+            }
+            int toScan = queryGrams.size() - needed + 1 - missing;
+            if (toScan <= 0) {
+                return;
+            }
+            lists.sort(Comparator.comparingInt(list -> list.size));
+
+            Set<Integer> seen = new HashSet<>();
+            for (IntList list : lists.subList(0, Math.min(toScan, lists.size()))) {
+                for (int i = 0; i < list.size && seen.size() < MAX_CANDIDATES; i++) {
+                    int slot = list.values[i];
+                    Entry entry = slots[slot];
+                    if (entry == null || !seen.add(slot)) {
+                        continue;
+                    }
+                    double score = score(entry.normalizedName, name, queryGrams);
+                    if (score > 0) {
+                        scores.merge(slot, score, Math::max);
+                    }
+                }
+            }
+        }
+
+        private static double score(String candidate, String name, Set<String> queryGrams) {
+            if (candidate.startsWith(name) || candidate.contains(" " + name)) {
+                return 2.0;
+            }
+            if (candidate.contains(name)) {
+                return 1.5;
+            }
+            int shared = 0;
+            for (String gram : queryGrams) {
+                if (candidate.contains(gram)) {
+                    shared++;
+                }
+            }
+            double similarity = (double) shared / queryGrams.size();
+            return similarity >= MIN_SIMILARITY ? similarity : 0;
+        }
+    }
+}
@@ -4,7 +4,7 @@ import com.sanjay.bms.dto.AccountDirectoryDto;
 import java.util.List;
 
 public interface AccountDirectoryService {
-    List<AccountDirectoryDto> searchAccounts(String query);
+    List<AccountDirectoryDto> searchAccounts(String query, int limit);
     AccountDirectoryDto getAccountByNumber(String accountNumber);
     List<AccountDirectoryDto> getAllActiveAccounts();
 
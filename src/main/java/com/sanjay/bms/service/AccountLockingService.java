@@ -0,0 +1,120 @@
+package com.sanjay.bms.service;
+
+import com.sanjay.bms.entity.Account;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.TypedQuery;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Guards balance updates on the transfer path against lost updates.
+ *
+ * PESSIMISTIC (default) takes row locks with SELECT ... FOR UPDATE, always lower
+ * account id first so two opposite transfers cannot deadlock. OPTIMISTIC relies on
+ * the Account version column and re-runs the whole transaction on a conflict.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class AccountLockingService {
+
+    public static final String PESSIMISTIC = "PESSIMISTIC";
+    public static final String OPTIMISTIC = "OPTIMISTIC";
+
+    // Ids per locking query, well below PostgreSQL's 32767 bind parameter limit
+    private static final int LOCK_CHUNK_SIZE = 1000;
+
+    private final EntityManager entityManager;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${banking.transaction.concurrency-mode:PESSIMISTIC}")
+    private String concurrencyMode;
+
+    @Value("${banking.transaction.optimistic-max-retries:5}")
+    private int maxRetries;
+
+    /**
+     * Runs the work in its own transaction. In optimistic mode a version conflict
+     * rolls back and retries, up to the configured number of attempts.
+     */
+    public <T> T executeInTransaction(Supplier<T> work) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        int attempts = isOptimistic() ? Math.max(1, maxRetries) : 1;
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> work.get());
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= attempts) {
+                    log.warn("Giving up after {} conflicting attempts: {}", attempt, e.getMessage());
+                    throw e;
+                }
+                log.debug("Version conflict on attempt {}, retrying", attempt);
+                backOff(attempt);
+            }
+        }
+    }
+
+    /**
+     * Locks both accounts of a transfer and reloads their current balances.
+     * Does nothing in optimistic mode, where the version check happens on flush.
+     */
+    public void lockForTransfer(Account first, Account second) {
+        if (isOptimistic()) {
+            return;
+        }
+        boolean firstIsLower = first.getId() < second.getId();
+        lock(firstIsLower ? first : second);
+        lock(firstIsLower ? second : first);
+    }
+
+    /**
+     * Loads and locks every account of a batch with one SELECT ... ORDER BY id FOR UPDATE
+     * per chunk of ids. Locks are taken in ascending id order, the same order single
+     * transfers use, so batches and single transfers cannot deadlock each other.
+     * In optimistic mode the accounts are only loaded.
+     */
+    public List<Account> lockAll(Collection<Long> accountIds) {
+        List<Long> ids = accountIds.stream().distinct().sorted().toList();
+        List<Account> accounts = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += LOCK_CHUNK_SIZE) {
+            TypedQuery<Account> query = entityManager
+                    .createQuery("SELECT a FROM Account a WHERE a.id IN :ids ORDER BY a.id", Account.class)
+                    .setParameter("ids", ids.subList(from, Math.min(from + LOCK_CHUNK_SIZE, ids.size())));
+            if (!isOptimistic()) {
+                query.setLockMode(LockModeType.PESSIMISTIC_WRITE);
+            }
+            accounts.addAll(query.getResultList());
+        }
+        return accounts;
+    }
+
+    private void lock(Account account) {
+        entityManager.refresh(account, LockModeType.PESSIMISTIC_WRITE);
+    }
+
+    private boolean isOptimistic() {
+        return OPTIMISTIC.equalsIgnoreCase(concurrencyMode);
+    }
+
+    private void backOff(int attempt) {
+        try {
+            // Small randomized delay so competing retries spread out
+            Thread.sleep((long) (Math.random() * 10 * attempt));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while retrying transfer", e);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.sanjay.bms.service;
+
+import com.sanjay.bms.repository.AccountRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Hands out account numbers of the form "AC" + 9-digit serial + Luhn check digit.
+ *
+ * Serials are leased in blocks of BLOCK_SIZE from a database sequence: sequence value
+ * n reserves serials [n * BLOCK_SIZE, (n + 1) * BLOCK_SIZE). Each node works through
+ * its own block in memory, so instances never hand out the same number and creating an
+ * account needs no uniqueness check. Numbers issued before the allocator existed were
+ * random; the few that fall inside a newly leased block are read with one range query
+ * when the block is leased and skipped.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class AccountNumberAllocator {
+
+    private static final String PREFIX = "AC";
+    private static final int SERIAL_DIGITS = 9;
+    private static final long BLOCK_SIZE = 100;
+    private static final long MAX_SERIAL = 999_999_999L;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AccountRepository accountRepository;
+
+    private long next;
+    private long blockEnd; // Exclusive
+    private Set<String> taken = Set.of();
+
+    @PostConstruct
+    void createSequence() {
+        // Block 0 is never leased so serial 000000000 is not used
+        jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS account_number_seq START WITH 1 INCREMENT BY 1");
+    }
+
+    public synchronized String nextAccountNumber() {
+        while (true) {
+            if (next >= blockEnd) {
+                leaseBlock();
+            }
+            String accountNumber = format(next++);
+            if (!taken.contains(accountNumber)) {
+                return accountNumber;
+            }
+        }
+    }
+
+    /**
+     * True when the check digit matches. Every number this allocator issues passes, so a
+     * mistyped digit never lands on another issued account; a number that fails and does
+     * not exist is reported to the sender as a typo. Older random numbers need not pass,
+     * which is why a failing number is only rejected once the lookup has missed.
+     */
+    public static boolean hasValidCheckDigit(String accountNumber) {
+        if (accountNumber == null || accountNumber.length() != PREFIX.length() + SERIAL_DIGITS + 1
+                || !accountNumber.startsWith(PREFIX)) {
+            return false;
+        }
+        String digits = accountNumber.substring(PREFIX.length());
+        if (!digits.chars().allMatch(Character::isDigit)) {
+            return false;
+        }
+        return luhnCheckDigit(digits.substring(0, SERIAL_DIGITS)) == digits.charAt(SERIAL_DIGITS) - '0';
+    }
+
+    private void leaseBlock() {
+        Long block = jdbcTemplate.queryForObject("SELECT nextval('account_number_seq')", Long.class);
+        long start = block * BLOCK_SIZE;
+        long end = start + BLOCK_SIZE;
+        if (end - 1 > MAX_SERIAL) {
+            throw new IllegalStateException("Account number space exhausted");
+        }
+        taken = new HashSet<>(accountRepository.findAccountNumbersBetween(format(start), format(end - 1)));
+        next = start;
+        blockEnd = end;
+        if (!taken.isEmpty()) {
+            log.info("Account number block {} overlaps {} existing numbers, skipping them", block, taken.size());
+        }
+    }
+
+    private static String format(long serial) {
+        String digits = String.format("%0" + SERIAL_DIGITS + "d", serial);
+        return PREFIX + digits + luhnCheckDigit(digits);
+    }
+
+    private static int luhnCheckDigit(String digits) {
+        int sum = 0;
+        boolean doubleIt = true; // The rightmost payload digit is doubled once the check digit is appended
+        for (int i = digits.length() - 1; i >= 0; i--) {
+            int digit = digits.charAt(i) - '0';
+            if (doubleIt) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+            doubleIt = !doubleIt;
+        }
+        return (10 - sum % 10) % 10;
+    }
+}
@@ -2,9 +2,11 @@ package com.sanjay.bms.service;
 
 import com.sanjay.bms.dto.*;
 import jakarta.servlet.http.HttpServletRequest;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 public interface AdminService {
     AdminDashboardDto getDashboard();
@@ -20,14 +22,16 @@ public interface AdminService {
     List<AuditLogDto> getAuditLogsByUser(String username);
     List<AuditLogDto> getCriticalLogs();
     List<TransactionDto> getHighValueTransactions(int limit);
-    DailySummaryDto getDailySummary();
+    DailySummaryDto getDailySummary(LocalDate date);
     TransactionStatsDto getTransactionStats(LocalDateTime startDate, LocalDateTime endDate);
 
     List<AccountDto> getAllAccounts();
 
     void freezeAccount(Long accountId, String reason, HttpServletRequest httpRequest);
 
-    List<TransactionDto> getAllTransactions();
+    TransactionPageDto getTransactions(String cursor, int size);
+
+    void streamTransactions(Consumer<TransactionDto> consumer);
 
     void closeAccount(Long accountId, String reason, HttpServletRequest httpRequest);
 
@@ -0,0 +1,246 @@
+package com.sanjay.bms.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sanjay.bms.entity.AuditLog;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes audit records off the request path.
+ *
+ * Records go into a bounded queue and a single writer thread inserts them with JDBC
+ * batch inserts, either once a batch is full or once the oldest record has waited
+ * for the flush interval. When the queue is full or the insert fails, records are
+ * appended to a local file instead, and that file is replayed into the database
+ * periodically (at-least-once: a replay interrupted half way may repeat records).
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class AuditLogWriter {
+
+    private static final String INSERT_SQL = "INSERT INTO audit_logs " +
+            "(username, action, details, ip_address, timestamp, device_info, severity, " +
+            "related_account_id, related_transaction_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${banking.audit.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${banking.audit.batch-size:200}")
+    private int batchSize;
+
+    @Value("${banking.audit.flush-interval-ms:500}")
+    private long flushIntervalMs;
+
+    @Value("${banking.audit.fallback-file:logs/audit-fallback.jsonl}")
+    private String fallbackFile;
+
+    private final Object fileLock = new Object();
+
+    private BlockingQueue<AuditLog> queue;
+    private Thread writerThread;
+    private volatile boolean running;
+
+    @PostConstruct
+    void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        writerThread = new Thread(this::runWriter, "audit-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Never blocks: a full queue spills the record to the fallback file.
+     */
+    public void enqueue(AuditLog auditLog) {
+        if (!running || !queue.offer(auditLog)) {
+            log.warn("Audit queue full, writing {} to fallback file", auditLog.getAction());
+            appendToFallback(List.of(auditLog));
+        }
+    }
+
+    // Moves records written to the fallback file back into the database
+    @Scheduled(fixedDelayString = "${banking.audit.replay-interval-ms:60000}")
+    public void replayFallback() {
+        Path path = Paths.get(fallbackFile);
+        Path replaying = Paths.get(fallbackFile + ".replaying");
+
+        try {
+            synchronized (fileLock) {
+                // A leftover .replaying file means the previous replay was interrupted
+                if (!Files.exists(replaying)) {
+                    if (!Files.exists(path) || Files.size(path) == 0) {
+                        return;
+                    }
+                    Files.move(path, replaying, StandardCopyOption.ATOMIC_MOVE);
+                }
+            }
+
+            List<AuditLog> batch = new ArrayList<>(batchSize);
+            int replayed = 0;
+            try (BufferedReader reader = Files.newBufferedReader(replaying, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    batch.add(objectMapper.readValue(line, AuditLog.class));
+                    if (batch.size() >= batchSize) {
+                        insertBatch(batch);
+                        replayed += batch.size();
+                        batch.clear();
+                    }
+                }
+            }
+            if (!batch.isEmpty()) {
+                insertBatch(batch);
+                replayed += batch.size();
+            }
+            Files.delete(replaying);
+            log.info("Replayed {} audit records from fallback file", replayed);
+        } catch (Exception e) {
+            log.warn("Audit fallback replay failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        // The writer notices within a second; not interrupted so an in-flight insert can finish
+        running = false;
+        writerThread.join(TimeUnit.SECONDS.toMillis(10));
+
+        // Whatever the writer did not get to is kept on disk
+        List<AuditLog> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            appendToFallback(remaining);
+        }
+    }
+
+    private void runWriter() {
+        List<AuditLog> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                AuditLog first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // Fill the batch until it is full or the first record has waited long enough
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    AuditLog next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // Write what we already hold; stop() moves the rest of the queue to the fallback file
+                Thread.currentThread().interrupt();
+                running = false;
+                if (!batch.isEmpty()) {
+                    write(batch);
+                }
+                return;
+            }
+
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<AuditLog> batch) {
+        try {
+            insertBatch(batch);
+            log.debug("Flushed {} audit records", batch.size());
+        } catch (Exception e) {
+            log.error("Audit batch insert failed, writing {} records to fallback file: {}",
+                    batch.size(), e.getMessage());
+            appendToFallback(batch);
+        }
+    }
+
+    private void insertBatch(List<AuditLog> batch) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, auditLog) -> {
+            ps.setString(1, auditLog.getUsername());
+            ps.setString(2, auditLog.getAction());
+            ps.setString(3, auditLog.getDetails());
+            ps.setString(4, auditLog.getIpAddress());
+            ps.setTimestamp(5, Timestamp.valueOf(auditLog.getTimestamp()));
+            ps.setString(6, auditLog.getDeviceInfo());
+            ps.setString(7, auditLog.getSeverity());
+            ps.setObject(8, auditLog.getRelatedAccountId(), Types.BIGINT);
+            ps.setObject(9, auditLog.getRelatedTransactionId(), Types.BIGINT);
+        });
+    }
+
+    private void appendToFallback(List<AuditLog> records) {
+        StringBuilder lines = new StringBuilder();
+        try {
+            for (AuditLog auditLog : records) {
+                lines.append(objectMapper.writeValueAsString(auditLog)).append('\n');
+            }
+        } catch (IOException e) {
+            log.error("Could not serialize audit records: {}", e.getMessage());
+            return;
+        }
+
+        Path path = Paths.get(fallbackFile);
+        synchronized (fileLock) {
+            try {
+                if (path.getParent() != null) {
+                    Files.createDirectories(path.getParent());
+                }
+                try (FileChannel channel = FileChannel.open(path,
+                        StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                    ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                    channel.force(false);
+                }
+            } catch (IOException e) {
+                // Last resort: the records at least end up in the application log
+                log.error("Could not write audit fallback file {}: {}. Lost records: {}",
+                        fallbackFile, e.getMessage(), lines);
+            }
+        }
+    }
+}
@@ -6,7 +6,8 @@ import jakarta.servlet.http.HttpServletRequest;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -17,8 +18,10 @@ import java.util.List;
 public class AuditService {
 
     private final AuditLogRepository auditLogRepository;
+    private final AuditLogWriter auditLogWriter;
 
-    @Transactional
+    // Captures the request details now; the insert happens asynchronously in AuditLogWriter,
+    // and only once the surrounding transaction (if any) has committed
     public void logAction(String username, String action, String details,
                           HttpServletRequest request, String severity) {
         AuditLog auditLog = new AuditLog();
@@ -30,11 +33,19 @@ public class AuditService {
         auditLog.setDeviceInfo(request.getHeader("User-Agent"));
         auditLog.setSeverity(severity);
 
-        auditLogRepository.save(auditLog);
-        log.info("Audit log created: {} - {} - {}", username, action, severity);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    auditLogWriter.enqueue(auditLog);
+                }
+            });
+        } else {
+            auditLogWriter.enqueue(auditLog);
+        }
+        log.info("Audit log queued: {} - {} - {}", username, action, severity);
     }
 
-    @Transactional
     public void logLogin(String username, HttpServletRequest request, boolean success) {
         String action = success ? "LOGIN_SUCCESS" : "LOGIN_FAILED";
         String severity = success ? "INFO" : "WARNING";
@@ -42,7 +53,6 @@ public class AuditService {
         logAction(username, action, details, request, severity);
     }
 
-    @Transactional
     public void logTransaction(String username, String transactionType, Long accountId,
                                String amount, HttpServletRequest request) {
         String action = "TRANSACTION_" + transactionType;
@@ -51,14 +61,12 @@ public class AuditService {
         logAction(username, action, details, request, "INFO");
     }
 
-    @Transactional
     public void logAccountAction(String username, String action, Long accountId,
                                  String details, HttpServletRequest request) {
         String severity = action.contains("FREEZE") || action.contains("CLOSE") ? "CRITICAL" : "INFO";
         logAction(username, action, details, request, severity);
     }
 
-    @Transactional
     public void logSecurityEvent(String username, String event, String details,
                                  HttpServletRequest request) {
         logAction(username, "SECURITY_" + event, details, request, "CRITICAL");
@@ -0,0 +1,336 @@
+package com.sanjay.bms.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sanjay.bms.dto.BatchTransferItemResult;
+import com.sanjay.bms.dto.BatchTransferResultDto;
+import com.sanjay.bms.dto.TransferRequest;
+import com.sanjay.bms.entity.Account;
+import com.sanjay.bms.entity.Transaction;
+import com.sanjay.bms.entity.User;
+import com.sanjay.bms.event.AccountBalanceChangedEvent;
+import com.sanjay.bms.exception.ResourceNotFoundException;
+import com.sanjay.bms.repository.AccountRepository;
+import com.sanjay.bms.repository.TransactionRepository;
+import com.sanjay.bms.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Applies a large batch of transfers (e.g. payroll) in one database transaction.
+ *
+ * All referenced accounts are resolved and then loaded and locked once, a thousand per
+ * query so payroll-sized batches stay within the bind parameter limit. Transfers
+ * are grouped by source account, each account balance is written once at the end,
+ * and the transaction rows go out as JDBC batch inserts on a single flush. Invalid
+ * or unaffordable items are reported individually and do not fail the batch.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class BatchTransferService {
+
+    private static final List<String> CSV_COLUMNS = List.of("fromAccountNumber", "toAccountNumber", "amount");
+
+    // Account numbers per lookup query, well below PostgreSQL's 32767 bind parameter limit
+    private static final int LOOKUP_CHUNK_SIZE = 1000;
+
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final UserRepository userRepository;
+    private final AccountLockingService accountLockingService;
+    private final DailySummaryService dailySummaryService;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DailyLimitService dailyLimitService;
+
+    @Value("${banking.transaction.batch-max-size:50000}")
+    private int maxBatchSize;
+
+    @Value("${banking.transaction.otp-required-threshold:25000}")
+    private BigDecimal otpRequiredThreshold;
+
+    /**
+     * Reads a batch from an uploaded file: a JSON array of transfer requests, or a CSV
+     * with the header fromAccountNumber,toAccountNumber,amount[,description].
+     */
+    public List<TransferRequest> parseFile(MultipartFile file) {
+        if (file == null || file.isEmpty()) {
+            throw new IllegalArgumentException("Batch file is empty");
+        }
+
+        String fileName = file.getOriginalFilename() != null ? file.getOriginalFilename().toLowerCase() : "";
+        boolean json = fileName.endsWith(".json") || "application/json".equals(file.getContentType());
+
+        try (InputStream in = file.getInputStream()) {
+            if (json) {
+                return objectMapper.readValue(in, new TypeReference<List<TransferRequest>>() {});
+            }
+            return parseCsv(in);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Could not read batch file: " + e.getMessage());
+        }
+    }
+
+    public BatchTransferResultDto executeBatch(List<TransferRequest> requests, String username) {
+        if (requests == null || requests.isEmpty()) {
+            throw new IllegalArgumentException("Batch contains no transfers");
+        }
+        if (requests.size() > maxBatchSize) {
+            throw new IllegalArgumentException("Batch exceeds the maximum of " + maxBatchSize + " transfers");
+        }
+
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found: " + username));
+
+        log.info("Processing batch of {} transfers for user: {}", requests.size(), username);
+        BatchTransferResultDto result = accountLockingService.executeInTransaction(() -> applyBatch(requests, user));
+        log.info("Batch completed: {} succeeded, {} failed", result.getSucceeded(), result.getFailed());
+        return result;
+    }
+
+    private BatchTransferResultDto applyBatch(List<TransferRequest> requests, User user) {
+        BatchTransferItemResult[] results = new BatchTransferItemResult[requests.size()];
+
+        // Resolve every referenced account, then load and lock them all once
+        Set<String> accountNumbers = new HashSet<>();
+        for (TransferRequest request : requests) {
+            if (request != null) {
+                if (request.getFromAccountNumber() != null) {
+                    accountNumbers.add(request.getFromAccountNumber());
+                }
+                if (request.getToAccountNumber() != null) {
+                    accountNumbers.add(request.getToAccountNumber());
+                }
+            }
+        }
+        Map<String, Account> accounts = accountLockingService.lockAll(findAccountIds(accountNumbers)).stream()
+                .collect(Collectors.toMap(Account::getAccountNumber, Function.identity()));
+
+        // Group valid items by source account, keeping submission order within each group
+        Map<Long, List<Integer>> bySource = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            TransferRequest request = requests.get(i);
+            String error = validate(request, accounts, user);
+            if (error != null) {
+                results[i] = itemResult(i, request, "FAILED", null, error);
+                continue;
+            }
+            Account from = accounts.get(request.getFromAccountNumber());
+            bySource.computeIfAbsent(from.getId(), id -> new ArrayList<>()).add(i);
+        }
+
+        Map<Long, BigDecimal> balances = new HashMap<>();
+        accounts.values().forEach(account -> balances.put(account.getId(), account.getBalance()));
+
+        LocalDateTime now = LocalDateTime.now();
+        Set<Long> touched = new HashSet<>();
+        List<Transaction> rows = new ArrayList<>();
+        BigDecimal totalAmount = BigDecimal.ZERO;
+        int succeeded = 0;
+
+        for (List<Integer> group : bySource.values()) {
+            for (int i : group) {
+                TransferRequest request = requests.get(i);
+                Account from = accounts.get(request.getFromAccountNumber());
+                Account to = accounts.get(request.getToAccountNumber());
+                BigDecimal amount = request.getAmount();
+
+                BigDecimal fromBalance = balances.get(from.getId());
+                if (fromBalance.compareTo(amount) < 0) {
+                    results[i] = itemResult(i, request, "FAILED", null,
+                            "Insufficient balance. Available: " + fromBalance);
+                    continue;
+                }
+
+                // Released again if the batch transaction rolls back
+                if (!dailyLimitService.tryReserve(from.getId(), amount, from.getDailyTransactionLimit())) {
+                    results[i] = itemResult(i, request, "FAILED", null, "Daily transaction limit exceeded");
+                    continue;
+                }
+
+                BigDecimal newFromBalance = fromBalance.subtract(amount);
+                BigDecimal newToBalance = balances.get(to.getId()).add(amount);
+                balances.put(from.getId(), newFromBalance);
+                balances.put(to.getId(), newToBalance);
+
+                String referenceNumber = "TXN" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+                String suffix = request.getDescription() != null ? " - " + request.getDescription() : "";
+                rows.add(transferRow("TRANSFER_OUT", from, to, amount, newFromBalance,
+                        "Transfer to " + to.getAccountNumber() + suffix, referenceNumber, now));
+                rows.add(transferRow("TRANSFER_IN", to, from, amount, newToBalance,
+                        "Transfer from " + from.getAccountNumber() + suffix, referenceNumber, now));
+
+                dailySummaryService.recordTransaction("TRANSFER_OUT", amount, firstToday(from, touched, now));
+                dailySummaryService.recordTransaction("TRANSFER_IN", amount, firstToday(to, touched, now));
+
+                results[i] = itemResult(i, request, "SUCCESS", referenceNumber, "Transfer completed");
+                totalAmount = totalAmount.add(amount);
+                succeeded++;
+            }
+        }
+
+        // Write each changed balance once
+        for (Account account : accounts.values()) {
+            if (touched.contains(account.getId())) {
+                account.setBalance(balances.get(account.getId()));
+                account.setLastTransactionDate(now);
+            }
+        }
+
+        // Sequence ids let Hibernate group these into JDBC batches on the single flush
+        transactionRepository.saveAll(rows);
+        transactionRepository.flush();
+        eventPublisher.publishEvent(new AccountBalanceChangedEvent(touched));
+
+        return new BatchTransferResultDto(requests.size(), succeeded, requests.size() - succeeded,
+                totalAmount, Arrays.asList(results));
+    }
+
+    private List<Long> findAccountIds(Collection<String> accountNumbers) {
+        List<String> numbers = new ArrayList<>(accountNumbers);
+        List<Long> ids = new ArrayList<>(numbers.size());
+        for (int from = 0; from < numbers.size(); from += LOOKUP_CHUNK_SIZE) {
+            List<String> chunk = numbers.subList(from, Math.min(from + LOOKUP_CHUNK_SIZE, numbers.size()));
+            for (Object[] row : accountRepository.findIdsByAccountNumberIn(chunk)) {
+                ids.add((Long) row[1]);
+            }
+        }
+        return ids;
+    }
+
+    private String validate(TransferRequest request, Map<String, Account> accounts, User user) {
+        if (request == null) {
+            return "Transfer entry is empty";
+        }
+        if (request.getFromAccountNumber() == null || request.getToAccountNumber() == null) {
+            return "Source and destination account numbers are required";
+        }
+        if (request.getAmount() == null || request.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+            return "Transfer amount must be greater than zero";
+        }
+        if (request.getAmount().compareTo(otpRequiredThreshold) > 0) {
+            return "Transfers above " + otpRequiredThreshold + " require OTP and cannot be batched";
+        }
+
+        Account from = accounts.get(request.getFromAccountNumber());
+        if (from == null) {
+            return "Source account not found: " + request.getFromAccountNumber();
+        }
+        Account to = accounts.get(request.getToAccountNumber());
+        if (to == null) {
+            return AccountNumberAllocator.hasValidCheckDigit(request.getToAccountNumber())
+                    ? "Destination account not found: " + request.getToAccountNumber()
+                    : "Destination account number is not valid, please check it for typos";
+        }
+        if (from.getId().equals(to.getId())) {
+            return "Cannot transfer to the same account";
+        }
+        if (!from.getUserId().equals(user.getId()) && !"ADMIN".equals(user.getRole())) {
+            return "You don't own the source account";
+        }
+        if (!"Active".equals(from.getAccountStatus())) {
+            return "Source account is not active";
+        }
+        if (!"Active".equals(to.getAccountStatus())) {
+            return "Destination account is not active";
+        }
+        return null;
+    }
+
+    private List<TransferRequest> parseCsv(InputStream in) throws IOException {
+        CSVFormat format = CSVFormat.DEFAULT.builder()
+                .setHeader()
+                .setSkipHeaderRecord(true)
+                .setIgnoreEmptyLines(true)
+                .setIgnoreSurroundingSpaces(true)
+                .build();
+
+        List<TransferRequest> requests = new ArrayList<>();
+        try (CSVParser parser = CSVParser.parse(new InputStreamReader(in, StandardCharsets.UTF_8), format)) {
+            if (!parser.getHeaderMap().keySet().containsAll(CSV_COLUMNS)) {
+                throw new IllegalArgumentException("CSV header must contain: " + String.join(",", CSV_COLUMNS));
+            }
+            for (CSVRecord record : parser) {
+                TransferRequest request = new TransferRequest();
+                request.setFromAccountNumber(column(record, "fromAccountNumber"));
+                request.setToAccountNumber(column(record, "toAccountNumber"));
+                request.setAmount(parseAmount(column(record, "amount")));
+                request.setDescription(column(record, "description"));
+                requests.add(request);
+            }
+        }
+        return requests;
+    }
+
+    private static String column(CSVRecord record, String name) {
+        if (!record.isSet(name)) {
+            return null;
+        }
+        String value = record.get(name);
+        return value.isBlank() ? null : value;
+    }
+
+    // Unparseable amounts are reported per item by validate()
+    private static BigDecimal parseAmount(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return new BigDecimal(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // Only the first transfer touching an account counts it as active today
+    private static boolean firstToday(Account account, Set<Long> touched, LocalDateTime now) {
+        if (!touched.add(account.getId())) {
+            return false;
+        }
+        LocalDateTime previous = account.getLastTransactionDate();
+        return previous == null || previous.toLocalDate().isBefore(now.toLocalDate());
+    }
+
+    private static Transaction transferRow(String type, Account account, Account counterparty, BigDecimal amount,
+                                           BigDecimal balanceAfter, String description, String referenceNumber,
+                                           LocalDateTime now) {
+        Transaction transaction = new Transaction();
+        transaction.setTransactionType(type);
+        transaction.setAccountId(account.getId());
+        transaction.setAmount(amount);
+        transaction.setBalanceAfter(balanceAfter);
+        transaction.setDescription(description);
+        transaction.setTransactionDate(now);
+        transaction.setReferenceNumber(referenceNumber);
+        transaction.setToAccountId(counterparty.getId());
+        transaction.setStatus("SUCCESS");
+        return transaction;
+    }
+
+    private static BatchTransferItemResult itemResult(int index, TransferRequest request, String status,
+                                                      String referenceNumber, String message) {
+        return new BatchTransferItemResult(index,
+                request != null ? request.getFromAccountNumber() : null,
+                request != null ? request.getToAccountNumber() : null,
+                request != null ? request.getAmount() : null,
+                status, referenceNumber, message);
+    }
+}
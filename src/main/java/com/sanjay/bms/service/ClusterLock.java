@@ -0,0 +1,48 @@
+package com.sanjay.bms.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Consumer;
+
+/**
+ * Runs work on one node at a time, under a Postgres session advisory lock named by a string.
+ *
+ * The lock and the work share one pooled connection in autocommit mode, so the work can
+ * run statements that are not allowed inside a transaction, such as CREATE INDEX
+ * CONCURRENTLY. When another node holds the lock the work is skipped rather than waited for.
+ */
+@RequiredArgsConstructor
+@Service
+public class ClusterLock {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Runs the work with a JdbcTemplate bound to the locked connection. Returns false,
+     * without running it, when another node holds the lock.
+     */
+    public boolean runExclusively(String name, Consumer<JdbcTemplate> work) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("ClusterLock must not be used inside a transaction");
+        }
+        Boolean ran = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            JdbcTemplate locked = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+            if (!Boolean.TRUE.equals(locked.queryForObject(
+                    "SELECT pg_try_advisory_lock(hashtext(?))", Boolean.class, name))) {
+                return false;
+            }
+            try {
+                work.accept(locked);
+            } finally {
+                locked.queryForObject("SELECT pg_advisory_unlock(hashtext(?))", Boolean.class, name);
+            }
+            return true;
+        });
+        return Boolean.TRUE.equals(ran);
+    }
+}
@@ -0,0 +1,53 @@
+package com.sanjay.bms.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Creates indexes that JPA cannot describe without blocking writes to their table.
+ *
+ * A plain CREATE INDEX holds a lock that stops every INSERT and UPDATE until the build is
+ * done; CREATE INDEX CONCURRENTLY does not. A concurrent build that is interrupted leaves
+ * an invalid index behind, which IF NOT EXISTS would then keep forever, so one is dropped
+ * and built again. Each index is built by one node at a time; the others skip it.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class ConcurrentIndexBuilder {
+
+    private static final String INVALID_SQL = "SELECT NOT i.indisvalid FROM pg_index i " +
+            "JOIN pg_class c ON c.oid = i.indexrelid WHERE c.relname = ?";
+
+    private final ClusterLock clusterLock;
+
+    // definition is everything after the index name, e.g. "ON transactions (created_at)"
+    public boolean createIndex(String name, String definition) {
+        return create("CREATE INDEX", name, definition);
+    }
+
+    public boolean createUniqueIndex(String name, String definition) {
+        return create("CREATE UNIQUE INDEX", name, definition);
+    }
+
+    private boolean create(String command, String name, String definition) {
+        try {
+            boolean built = clusterLock.runExclusively("index:" + name, jdbc -> {
+                if (jdbc.queryForList(INVALID_SQL, Boolean.class, name).contains(true)) {
+                    log.info("Rebuilding invalid index {}", name);
+                    jdbc.execute("DROP INDEX CONCURRENTLY IF EXISTS " + name);
+                }
+                jdbc.execute(command + " CONCURRENTLY IF NOT EXISTS " + name + " " + definition);
+            });
+            if (!built) {
+                log.info("Index {} is being built by another node", name);
+            }
+            return true;
+        } catch (Exception e) {
+            log.warn("Could not create index {}: {}", name, e.getMessage());
+            return false;
+        }
+    }
+}
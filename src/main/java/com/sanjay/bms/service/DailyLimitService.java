@@ -0,0 +1,369 @@
+package com.sanjay.bms.service;
+
+import com.sanjay.bms.exception.TransactionLimitExceededException;
+import com.sanjay.bms.repository.TransactionRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Enforces each account's daily transaction limit over a rolling 24 hours.
+ *
+ * The limit is checked against the database: a reservation sums the account's committed
+ * outgoing amounts (withdrawals and transfers) in the window, plus what the current
+ * transaction has already reserved. Callers reserve while holding the account row lock,
+ * or in the transaction that updates the versioned account row, so debits committed on
+ * any node are counted and two debits cannot both pass against the same total. Within
+ * one transaction the committed total is read once per account.
+ *
+ * Each node also sums the debits it has seen in 15-minute buckets held in memory. These
+ * only serve as a pre-check that refuses a debit without a query, and as the source of
+ * the totals written behind to the account row (dailyTransactionTotal /
+ * dailyLimitResetDate) for display. A node's window is rebuilt from the transactions
+ * table the first time it is used, and again whenever the database shows debits it
+ * has not seen.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class DailyLimitService {
+
+    private static final long BUCKET_SECONDS = 15 * 60;
+    // 97 buckets so the window always covers at least a full 24 hours
+    private static final int BUCKETS = 97;
+    private static final int STRIPES = 64;
+
+    private static final String UPDATE_SQL =
+            "UPDATE accounts SET daily_transaction_total = ?, daily_limit_reset_date = ? WHERE id = ?";
+
+    private final TransactionRepository transactionRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${banking.transaction.max-daily-limit:100000}")
+    private BigDecimal maxDailyLimit;
+
+    private final Map<Long, Window> windows = new ConcurrentHashMap<>();
+    private final ReentrantLock[] stripes = createStripes();
+    // Key for the current transaction's Reservations
+    private final Object reservationsKey = new Object();
+
+    /**
+     * Reserves the amount against the account's rolling limit, or throws if it would be
+     * exceeded. The caller must hold the account's row lock (or update its versioned row
+     * in the same transaction); the reservation ends with the current transaction.
+     */
+    public void reserve(Long accountId, BigDecimal amount, BigDecimal accountLimit) {
+        if (!tryReserve(accountId, amount, accountLimit)) {
+            throw new TransactionLimitExceededException("Daily transaction limit exceeded. Remaining for the next 24 hours: "
+                    + getRemaining(accountId, accountLimit));
+        }
+    }
+
+    public boolean tryReserve(Long accountId, BigDecimal amount, BigDecimal accountLimit) {
+        BigDecimal limit = effectiveLimit(accountLimit);
+        long bucket = currentBucket();
+
+        // This node's debits alone already rule it out
+        if (localTotal(accountId, bucket).add(amount).compareTo(limit) > 0) {
+            return false;
+        }
+
+        Reservations reservations = reservations();
+        BigDecimal committed = reservations.committed.computeIfAbsent(accountId,
+                id -> transactionRepository.sumDebitsSince(id, windowStart(bucket)));
+        BigDecimal reserved = reservations.reserved.getOrDefault(accountId, BigDecimal.ZERO);
+        if (committed.add(reserved).add(amount).compareTo(limit) > 0) {
+            return false;
+        }
+        reservations.reserved.put(accountId, reserved.add(amount));
+
+        Window window = recordLocally(accountId, bucket, amount, committed);
+        if (window != null) {
+            afterCompletion(succeeded -> {
+                if (!succeeded) {
+                    release(accountId, window, bucket, amount);
+                }
+            });
+        }
+        return true;
+    }
+
+    // For checks that do not debit yet, such as initiating an OTP transfer
+    public BigDecimal getRemaining(Long accountId, BigDecimal accountLimit) {
+        BigDecimal remaining = effectiveLimit(accountLimit).subtract(getRollingTotal(accountId));
+        return remaining.signum() > 0 ? remaining : BigDecimal.ZERO;
+    }
+
+    // Committed debits in the window, from any node
+    public BigDecimal getRollingTotal(Long accountId) {
+        return transactionRepository.sumDebitsSince(accountId, windowStart(currentBucket()));
+    }
+
+    // Write-behind of totals that changed since the last flush; empty windows are dropped
+    @Scheduled(fixedDelayString = "${banking.limits.flush-interval-ms:5000}")
+    public void flush() {
+        long bucket = currentBucket();
+        List<Object[]> updates = new ArrayList<>();
+        List<Window> written = new ArrayList<>();
+
+        windows.entrySet().removeIf(entry -> {
+            Window window = entry.getValue();
+            ReentrantLock lock = stripe(entry.getKey());
+            lock.lock();
+            try {
+                window.advance(bucket);
+                if (window.persistedTotal == null || window.total.compareTo(window.persistedTotal) != 0) {
+                    LocalDateTime resetAt = window.resetAt();
+                    updates.add(new Object[]{window.total,
+                            resetAt != null ? Timestamp.valueOf(resetAt) : null, entry.getKey()});
+                    window.persistedTotal = window.total;
+                    written.add(window);
+                    return false;
+                }
+                return window.total.signum() == 0;
+            } finally {
+                lock.unlock();
+            }
+        });
+
+        if (!updates.isEmpty()) {
+            try {
+                jdbcTemplate.batchUpdate(UPDATE_SQL, updates);
+            } catch (Exception e) {
+                log.warn("Daily limit write-behind failed for {} accounts: {}", updates.size(), e.getMessage());
+                written.forEach(window -> window.persistedTotal = null);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private BigDecimal localTotal(Long accountId, long bucket) {
+        Window window = window(accountId);
+        ReentrantLock lock = stripe(accountId);
+        lock.lock();
+        try {
+            window.advance(bucket);
+            return window.total;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds a reservation to this node's window and returns that window, or null when the
+     * window turned out to be behind the database and was dropped to be rebuilt.
+     */
+    private Window recordLocally(Long accountId, long bucket, BigDecimal amount, BigDecimal committed) {
+        ReentrantLock lock = stripe(accountId);
+        lock.lock();
+        try {
+            Window window = windows.get(accountId);
+            if (window == null) {
+                return null;
+            }
+            window.advance(bucket);
+            // Everything committed is in a current window; less means other nodes debited the account
+            if (window.total.compareTo(committed) < 0) {
+                windows.remove(accountId, window);
+                return null;
+            }
+            window.add(bucket, amount);
+            return window;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Reservations reservations() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return new Reservations();
+        }
+        Reservations reservations = (Reservations) TransactionSynchronizationManager.getResource(reservationsKey);
+        if (reservations != null) {
+            return reservations;
+        }
+        Reservations created = new Reservations();
+        TransactionSynchronizationManager.bindResource(reservationsKey, created);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            // Kept away from transactions started with REQUIRES_NEW inside this one
+            @Override
+            public void suspend() {
+                TransactionSynchronizationManager.unbindResource(reservationsKey);
+            }
+
+            @Override
+            public void resume() {
+                TransactionSynchronizationManager.bindResource(reservationsKey, created);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(reservationsKey);
+            }
+        });
+        return created;
+    }
+
+    private Window window(Long accountId) {
+        Window window = windows.get(accountId);
+        if (window != null) {
+            return window;
+        }
+        // Loaded outside the stripe lock; if another thread got there first its window wins
+        Window loaded = load(accountId);
+        Window existing = windows.putIfAbsent(accountId, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    private Window load(Long accountId) {
+        long bucket = currentBucket();
+        LocalDateTime since = windowStart(bucket);
+        Window window = new Window();
+        for (Object[] row : transactionRepository.findDebitsSince(accountId, since)) {
+            long rowBucket = bucketOf((LocalDateTime) row[0]);
+            if (rowBucket <= bucket) {
+                window.add(rowBucket, (BigDecimal) row[1]);
+            }
+        }
+        return window;
+    }
+
+    private void release(Long accountId, Window window, long bucket, BigDecimal amount) {
+        ReentrantLock lock = stripe(accountId);
+        lock.lock();
+        try {
+            // A rebuilt window never held this reservation
+            if (windows.get(accountId) != window) {
+                return;
+            }
+            window.remove(bucket, amount);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private BigDecimal effectiveLimit(BigDecimal accountLimit) {
+        return accountLimit != null && accountLimit.compareTo(maxDailyLimit) < 0 ? accountLimit : maxDailyLimit;
+    }
+
+    private ReentrantLock stripe(Long accountId) {
+        return stripes[Math.floorMod(accountId.hashCode(), STRIPES)];
+    }
+
+    private static ReentrantLock[] createStripes() {
+        ReentrantLock[] locks = new ReentrantLock[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        return locks;
+    }
+
+    private static void afterCompletion(Consumer<Boolean> callback) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            callback.accept(true);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                callback.accept(status == STATUS_COMMITTED);
+            }
+        });
+    }
+
+    private static long currentBucket() {
+        return bucketOf(LocalDateTime.now());
+    }
+
+    private static long bucketOf(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toEpochSecond() / BUCKET_SECONDS;
+    }
+
+    // Start of the oldest bucket still in the window ending at the given bucket
+    private static LocalDateTime windowStart(long bucket) {
+        return toDateTime((bucket - BUCKETS + 1) * BUCKET_SECONDS);
+    }
+
+    private static LocalDateTime toDateTime(long epochSecond) {
+        return LocalDateTime.ofEpochSecond(epochSecond, 0,
+                ZoneId.systemDefault().getRules().getOffset(Instant.ofEpochSecond(epochSecond)));
+    }
+
+    // What the current transaction has read and reserved, per account
+    private static final class Reservations {
+        private final Map<Long, BigDecimal> committed = new HashMap<>();
+        private final Map<Long, BigDecimal> reserved = new HashMap<>();
+    }
+
+    // Ring of per-bucket sums; guarded by the account's stripe lock
+    private static final class Window {
+        private final long[] bucketIds = new long[BUCKETS];
+        private final BigDecimal[] amounts = new BigDecimal[BUCKETS];
+        private BigDecimal total = BigDecimal.ZERO;
+        private BigDecimal persistedTotal; // Last value written to the account row, null if unknown
+
+        private void advance(long currentBucket) {
+            for (int i = 0; i < BUCKETS; i++) {
+                if (amounts[i] != null && bucketIds[i] <= currentBucket - BUCKETS) {
+                    total = total.subtract(amounts[i]);
+                    amounts[i] = null;
+                }
+            }
+        }
+
+        private void add(long bucket, BigDecimal amount) {
+            int slot = (int) Math.floorMod(bucket, (long) BUCKETS);
+            if (amounts[slot] == null || bucketIds[slot] != bucket) {
+                if (amounts[slot] != null) {
+                    total = total.subtract(amounts[slot]);
+                }
+                bucketIds[slot] = bucket;
+                amounts[slot] = BigDecimal.ZERO;
+            }
+            amounts[slot] = amounts[slot].add(amount);
+            total = total.add(amount);
+        }
+
+        private void remove(long bucket, BigDecimal amount) {
+            int slot = (int) Math.floorMod(bucket, (long) BUCKETS);
+            if (amounts[slot] != null && bucketIds[slot] == bucket) {
+                amounts[slot] = amounts[slot].subtract(amount);
+                total = total.subtract(amount);
+            }
+        }
+
+        // When the oldest amount still counted leaves the window
+        private LocalDateTime resetAt() {
+            long oldest = Long.MAX_VALUE;
+            for (int i = 0; i < BUCKETS; i++) {
+                if (amounts[i] != null && amounts[i].signum() > 0) {
+                    oldest = Math.min(oldest, bucketIds[i]);
+                }
+            }
+            return oldest == Long.MAX_VALUE ? null : toDateTime((oldest + BUCKETS) * BUCKET_SECONDS);
+        }
+    }
+}
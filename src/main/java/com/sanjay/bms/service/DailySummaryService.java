@@ -0,0 +1,290 @@
+package com.sanjay.bms.service;
+
+import com.sanjay.bms.entity.DailySummary;
+import com.sanjay.bms.repository.AccountRepository;
+import com.sanjay.bms.repository.DailySummaryRepository;
+import com.sanjay.bms.repository.TransactionRepository;
+import com.sanjay.bms.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Keeps per-day transaction, account and user counters so the admin daily summary
+ * never has to scan the transactions, accounts or users tables.
+ *
+ * Changes are collected in memory once the surrounding transaction commits and are
+ * added onto the daily_summaries row by a periodic flush. Every node only ever adds
+ * its own deltas, so several instances can share the table.
+ *
+ * Days without a row are rebuilt from the source tables, but only up to the point every
+ * node has had time to flush, and never while this node still holds deltas for the day,
+ * so a delta flushed afterwards is not counted a second time.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class DailySummaryService {
+
+    private final DailySummaryRepository dailySummaryRepository;
+    private final TransactionRepository transactionRepository;
+    private final AccountRepository accountRepository;
+    private final UserRepository userRepository;
+
+    @Value("${banking.summary.flush-interval-ms:10000}")
+    private long flushIntervalMs;
+
+    // Deltas committed on this node but not yet flushed, keyed by day
+    private final Map<LocalDate, DailySummary> pending = new HashMap<>();
+
+    public void recordTransaction(String transactionType, BigDecimal amount, LocalDateTime previousActivity) {
+        recordTransaction(transactionType, amount,
+                previousActivity == null || previousActivity.toLocalDate().isBefore(LocalDate.now()));
+    }
+
+    public void recordTransaction(String transactionType, BigDecimal amount, boolean firstToday) {
+        afterCommit(delta -> {
+            delta.setTotalTransactions(delta.getTotalTransactions() + 1);
+            delta.setTotalTransactionAmount(delta.getTotalTransactionAmount().add(amount));
+            switch (transactionType) {
+                case "DEPOSIT" -> {
+                    delta.setDepositsCount(delta.getDepositsCount() + 1);
+                    delta.setDepositsAmount(delta.getDepositsAmount().add(amount));
+                    delta.setNetFlow(delta.getNetFlow().add(amount));
+                }
+                case "WITHDRAW" -> {
+                    delta.setWithdrawalsCount(delta.getWithdrawalsCount() + 1);
+                    delta.setWithdrawalsAmount(delta.getWithdrawalsAmount().add(amount));
+                    delta.setNetFlow(delta.getNetFlow().subtract(amount));
+                }
+                case "TRANSFER_OUT" -> {
+                    delta.setTransfersCount(delta.getTransfersCount() + 1);
+                    delta.setTransfersAmount(delta.getTransfersAmount().add(amount));
+                }
+                default -> {
+                    // TRANSFER_IN only counts towards the totals
+                }
+            }
+            if (firstToday) {
+                delta.setActiveAccounts(delta.getActiveAccounts() + 1);
+            }
+        });
+    }
+
+    public void recordNewAccount(BigDecimal openingBalance) {
+        afterCommit(delta -> {
+            delta.setNewAccounts(delta.getNewAccounts() + 1);
+            delta.setNetFlow(delta.getNetFlow().add(openingBalance));
+        });
+    }
+
+    public void recordNewUser() {
+        afterCommit(delta -> delta.setNewUsers(delta.getNewUsers() + 1));
+    }
+
+    /**
+     * Returns the summary for the given day: the persisted row plus anything this node
+     * has not flushed yet. Past days without a row are rebuilt once from the source tables.
+     */
+    public DailySummary getSummary(LocalDate date) {
+        DailySummary row = dailySummaryRepository.findById(date).orElse(null);
+        if (row == null && date.isBefore(LocalDate.now()) && seed(date)) {
+            row = dailySummaryRepository.findById(date).orElse(null);
+        }
+
+        DailySummary summary = new DailySummary(date);
+        if (row != null) {
+            merge(summary, row);
+            summary.setClosingBalance(row.getClosingBalance());
+            summary.setUpdatedAt(row.getUpdatedAt());
+        }
+        synchronized (this) {
+            DailySummary delta = pending.get(date);
+            if (delta != null) {
+                merge(summary, delta);
+            }
+        }
+        return summary;
+    }
+
+    /**
+     * System balance at the end of the given day (or now, for today), derived from the
+     * previous day's closing balance and the day's net flow. Falls back to a SUM over
+     * accounts only when no closing balance has been recorded yet.
+     */
+    public BigDecimal getSystemBalance(DailySummary summary) {
+        if (summary.getClosingBalance() != null) {
+            return summary.getClosingBalance();
+        }
+        BigDecimal previousClosing = dailySummaryRepository.findById(summary.getSummaryDate().minusDays(1))
+                .map(DailySummary::getClosingBalance)
+                .orElse(null);
+        if (previousClosing != null) {
+            return previousClosing.add(summary.getNetFlow());
+        }
+        return accountRepository.getTotalBalance();
+    }
+
+    @Scheduled(fixedDelayString = "${banking.summary.flush-interval-ms:10000}")
+    public void flush() {
+        List<DailySummary> deltas;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            deltas = new ArrayList<>(pending.values());
+            pending.clear();
+        }
+
+        for (DailySummary delta : deltas) {
+            delta.setUpdatedAt(LocalDateTime.now());
+            try {
+                dailySummaryRepository.addDelta(delta);
+            } catch (Exception e) {
+                log.error("Failed to flush daily summary for {}: {}", delta.getSummaryDate(), e.getMessage());
+                synchronized (this) {
+                    merge(pending.computeIfAbsent(delta.getSummaryDate(), DailySummary::new), delta);
+                }
+            }
+        }
+    }
+
+    // Shortly after midnight, close out the previous day
+    @Scheduled(cron = "${banking.summary.close-cron:0 5 0 * * *}")
+    public void closePreviousDay() {
+        flush();
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        DailySummary summary = getSummary(yesterday);
+        if (summary.getClosingBalance() == null) {
+            dailySummaryRepository.setClosingBalance(yesterday, getSystemBalance(summary));
+            log.info("Daily summary closed for {}", yesterday);
+        }
+    }
+
+    // Seed today's row on first deployment so earlier activity is not lost
+    @EventListener(ApplicationReadyEvent.class)
+    public void seedToday() {
+        LocalDate today = LocalDate.now();
+        if (!dailySummaryRepository.existsById(today) && seed(today)) {
+            log.info("Daily summary seeded for {}", today);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /**
+     * Inserts a rebuilt row for a day that has none. Activity newer than two flush
+     * intervals may still sit in some node's pending deltas and is left to those
+     * deltas; anything older would already have created the row when it was flushed.
+     *
+     * @return true if the row exists afterwards
+     */
+    private boolean seed(LocalDate date) {
+        synchronized (this) {
+            if (pending.containsKey(date)) {
+                return false;
+            }
+        }
+        LocalDateTime settled = LocalDateTime.now().minus(Duration.ofMillis(2 * flushIntervalMs));
+        LocalDateTime end = date.plusDays(1).atStartOfDay();
+        try {
+            if (dailySummaryRepository.insertIfAbsent(rebuild(date, end.isBefore(settled) ? end : settled)) == 0) {
+                log.debug("Daily summary for {} was created concurrently", date);
+            }
+            return true;
+        } catch (Exception e) {
+            log.warn("Failed to seed daily summary for {}: {}", date, e.getMessage());
+            return false;
+        }
+    }
+
+    private DailySummary rebuild(LocalDate date, LocalDateTime end) {
+        LocalDateTime start = date.atStartOfDay();
+
+        DailySummary summary = new DailySummary(date);
+        for (Object[] row : transactionRepository.sumByTypeBetween(start, end)) {
+            String type = (String) row[0];
+            long count = ((Number) row[1]).longValue();
+            BigDecimal amount = (BigDecimal) row[2];
+
+            summary.setTotalTransactions(summary.getTotalTransactions() + count);
+            summary.setTotalTransactionAmount(summary.getTotalTransactionAmount().add(amount));
+            switch (type) {
+                case "DEPOSIT" -> {
+                    summary.setDepositsCount(count);
+                    summary.setDepositsAmount(amount);
+                    summary.setNetFlow(summary.getNetFlow().add(amount));
+                }
+                case "WITHDRAW" -> {
+                    summary.setWithdrawalsCount(count);
+                    summary.setWithdrawalsAmount(amount);
+                    summary.setNetFlow(summary.getNetFlow().subtract(amount));
+                }
+                case "TRANSFER_OUT" -> {
+                    summary.setTransfersCount(count);
+                    summary.setTransfersAmount(amount);
+                }
+                default -> {
+                }
+            }
+        }
+        summary.setActiveAccounts(transactionRepository.countActiveAccountsBetween(start, end));
+        summary.setNewAccounts(accountRepository.countCreatedBetween(start, end));
+        summary.setNewUsers(userRepository.countCreatedBetween(start, end));
+        summary.setUpdatedAt(LocalDateTime.now());
+        return summary;
+    }
+
+    private void afterCommit(Consumer<DailySummary> change) {
+        LocalDate date = LocalDate.now();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(date, change);
+                }
+            });
+        } else {
+            apply(date, change);
+        }
+    }
+
+    private synchronized void apply(LocalDate date, Consumer<DailySummary> change) {
+        change.accept(pending.computeIfAbsent(date, DailySummary::new));
+    }
+
+    private static void merge(DailySummary target, DailySummary delta) {
+        target.setTotalTransactions(target.getTotalTransactions() + delta.getTotalTransactions());
+        target.setTotalTransactionAmount(target.getTotalTransactionAmount().add(delta.getTotalTransactionAmount()));
+        target.setDepositsCount(target.getDepositsCount() + delta.getDepositsCount());
+        target.setDepositsAmount(target.getDepositsAmount().add(delta.getDepositsAmount()));
+        target.setWithdrawalsCount(target.getWithdrawalsCount() + delta.getWithdrawalsCount());
+        target.setWithdrawalsAmount(target.getWithdrawalsAmount().add(delta.getWithdrawalsAmount()));
+        target.setTransfersCount(target.getTransfersCount() + delta.getTransfersCount());
+        target.setTransfersAmount(target.getTransfersAmount().add(delta.getTransfersAmount()));
+        target.setNewAccounts(target.getNewAccounts() + delta.getNewAccounts());
+        target.setNewUsers(target.getNewUsers() + delta.getNewUsers());
+        target.setActiveAccounts(target.getActiveAccounts() + delta.getActiveAccounts());
+        target.setNetFlow(target.getNetFlow().add(delta.getNetFlow()));
+    }
+}
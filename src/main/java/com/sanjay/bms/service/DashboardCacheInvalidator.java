@@ -0,0 +1,53 @@
+package com.sanjay.bms.service;
+
+import com.sanjay.bms.event.AccountBalanceChangedEvent;
+import com.sanjay.bms.event.AccountStatusChangedEvent;
+import com.sanjay.bms.event.NotificationsChangedEvent;
+import com.sanjay.bms.repository.AccountRepository;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Evicts cached user dashboards once the change that made them stale has committed.
+ * Evicting before commit would let a concurrent read cache the old state again.
+ */
+@Slf4j
+@AllArgsConstructor
+@Service
+public class DashboardCacheInvalidator {
+
+    private static final String DASHBOARD_CACHE = "userDashboard";
+
+    private final CacheManager cacheManager;
+    private final AccountRepository accountRepository;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBalanceChanged(AccountBalanceChangedEvent event) {
+        if (event.getAccountIds().isEmpty()) {
+            return;
+        }
+        accountRepository.findOwnerUsernames(event.getAccountIds()).forEach(this::evict);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStatusChanged(AccountStatusChangedEvent event) {
+        evict(event.getUsername());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNotificationsChanged(NotificationsChangedEvent event) {
+        evict(event.getUsername());
+    }
+
+    private void evict(String username) {
+        Cache cache = cacheManager.getCache(DASHBOARD_CACHE);
+        if (cache != null && username != null) {
+            cache.evict(username);
+            log.debug("Dashboard cache evicted for {}", username);
+        }
+    }
+}
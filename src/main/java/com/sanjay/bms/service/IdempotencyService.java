@@ -0,0 +1,184 @@
+package com.sanjay.bms.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sanjay.bms.entity.IdempotencyRecord;
+import com.sanjay.bms.exception.IdempotencyConflictException;
+import com.sanjay.bms.repository.IdempotencyRecordRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.function.Supplier;
+
+/**
+ * Makes money-moving requests safe to retry with an Idempotency-Key header.
+ *
+ * The first request with a key claims it by inserting an IN_PROGRESS row (unique per
+ * user and key), runs, and stores its response. Replays of the same request get the
+ * stored response back without running again, normally straight from the in-memory
+ * "idempotency" cache. A failed request releases its key so it can be retried.
+ *
+ * If the node dies between the money moving and the response being stored, the key
+ * stays IN_PROGRESS and replays are refused with 409 until it expires, rather than
+ * risking a second debit.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final String CACHE = "idempotency";
+    private static final int MAX_KEY_LENGTH = 100;
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final CacheManager cacheManager;
+    private final ObjectMapper objectMapper;
+
+    @Value("${banking.idempotency.retention:24h}")
+    private Duration retention;
+
+    /**
+     * Runs the action once per (username, key). Without a key the action simply runs.
+     *
+     * @param operation identifies the endpoint and target, e.g. "withdraw:42"; part of the request fingerprint
+     */
+    public <T> ResponseEntity<T> execute(String key, String username, String operation, Object request,
+                                         TypeReference<T> responseType, Supplier<ResponseEntity<T>> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException(HEADER + " must be at most " + MAX_KEY_LENGTH + " characters");
+        }
+
+        String cacheKey = username + ":" + key;
+        String requestHash = fingerprint(operation, request);
+
+        StoredResponse cached = cache().get(cacheKey, StoredResponse.class);
+        if (cached != null) {
+            return replay(cached, requestHash, responseType);
+        }
+
+        IdempotencyRecord record = claim(username, key, requestHash);
+        if (record == null) {
+            // Someone got there first; either finished (replay) or still running (conflict)
+            IdempotencyRecord existing = idempotencyRecordRepository.findByUsernameAndIdempotencyKey(username, key)
+                    .orElseThrow(() -> new IdempotencyConflictException(
+                            "A request with this " + HEADER + " is being processed"));
+            if (!"COMPLETED".equals(existing.getStatus())) {
+                if (!existing.getRequestHash().equals(requestHash)) {
+                    throw mismatch();
+                }
+                throw new IdempotencyConflictException("A request with this " + HEADER + " is still being processed");
+            }
+            StoredResponse stored = new StoredResponse(existing.getRequestHash(),
+                    existing.getResponseStatus(), existing.getResponseBody());
+            cache().put(cacheKey, stored);
+            return replay(stored, requestHash, responseType);
+        }
+
+        ResponseEntity<T> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            // Nothing was committed, so the key is free for a retry
+            idempotencyRecordRepository.delete(record);
+            throw e;
+        }
+
+        try {
+            record.setStatus("COMPLETED");
+            record.setResponseStatus(response.getStatusCode().value());
+            record.setResponseBody(objectMapper.writeValueAsString(response.getBody()));
+            idempotencyRecordRepository.save(record);
+            cache().put(cacheKey, new StoredResponse(requestHash, record.getResponseStatus(), record.getResponseBody()));
+        } catch (Exception e) {
+            // The action has already happened; the key stays IN_PROGRESS so retries are refused, not repeated
+            log.error("Could not store response for {} {}: {}", HEADER, key, e.getMessage());
+        }
+        return response;
+    }
+
+    @Scheduled(fixedDelayString = "${banking.idempotency.cleanup-interval-ms:3600000}")
+    public void removeExpired() {
+        int removed = idempotencyRecordRepository.deleteExpired(LocalDateTime.now());
+        if (removed > 0) {
+            log.info("Removed {} expired idempotency keys", removed);
+        }
+    }
+
+    // Returns null when the key is already taken
+    private IdempotencyRecord claim(String username, String key, String requestHash) {
+        LocalDateTime now = LocalDateTime.now();
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setUsername(username);
+        record.setIdempotencyKey(key);
+        record.setRequestHash(requestHash);
+        record.setStatus("IN_PROGRESS");
+        record.setCreatedAt(now);
+        record.setExpiresAt(now.plus(retention));
+        try {
+            return idempotencyRecordRepository.saveAndFlush(record);
+        } catch (DataIntegrityViolationException e) {
+            return null;
+        }
+    }
+
+    private <T> ResponseEntity<T> replay(StoredResponse stored, String requestHash, TypeReference<T> responseType) {
+        if (!stored.requestHash().equals(requestHash)) {
+            throw mismatch();
+        }
+        try {
+            T body = stored.body() != null ? objectMapper.readValue(stored.body(), responseType) : null;
+            return ResponseEntity.status(stored.status())
+                    .header(REPLAYED_HEADER, "true")
+                    .body(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored response could not be read", e);
+        }
+    }
+
+    private String fingerprint(String operation, Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(operation.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+            digest.update(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException("Could not fingerprint request", e);
+        }
+    }
+
+    private Cache cache() {
+        Cache cache = cacheManager.getCache(CACHE);
+        if (cache == null) {
+            throw new IllegalStateException("Cache " + CACHE + " is not configured");
+        }
+        return cache;
+    }
+
+    private static IllegalArgumentException mismatch() {
+        return new IllegalArgumentException(HEADER + " was already used for a different request");
+    }
+
+    private record StoredResponse(String requestHash, int status, String body) {
+    }
+}
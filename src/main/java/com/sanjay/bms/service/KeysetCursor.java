@@ -0,0 +1,58 @@
+package com.sanjay.bms.service;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.function.Function;
+
+/**
+ * Opaque cursors for keyset pagination over (sort value, id).
+ *
+ * A cursor is the last row's sort value and id, Base64url encoded. Decoding checks both
+ * halves parse before they reach a query, and reports anything else as an invalid cursor.
+ */
+public final class KeysetCursor {
+
+    private KeysetCursor() {
+    }
+
+    public static String encode(LocalDateTime sortValue, Long id) {
+        return encode(sortValue.toString(), id);
+    }
+
+    public static String encode(BigDecimal sortValue, Long id) {
+        return encode(sortValue.toPlainString(), id);
+    }
+
+    public static Position<LocalDateTime> decodeDate(String cursor) {
+        return decode(cursor, LocalDateTime::parse);
+    }
+
+    public static Position<BigDecimal> decodeAmount(String cursor) {
+        return decode(cursor, BigDecimal::new);
+    }
+
+    private static String encode(String sortValue, Long id) {
+        String raw = sortValue + "_" + id;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static <T> Position<T> decode(String cursor, Function<String, T> sortValueParser) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("_", 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new Position<>(sortValueParser.apply(parts[0]), Long.parseLong(parts[1]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    public record Position<T>(T sortValue, Long id) {
+    }
+}
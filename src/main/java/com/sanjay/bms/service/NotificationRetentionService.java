@@ -0,0 +1,215 @@
+package com.sanjay.bms.service;
+
+import com.sanjay.bms.dto.NotificationDto;
+import com.sanjay.bms.dto.NotificationPageDto;
+import com.sanjay.bms.entity.User;
+import com.sanjay.bms.exception.ResourceNotFoundException;
+import com.sanjay.bms.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps the live notifications table small.
+ *
+ * Read notifications older than the retention period are moved to notifications_archive
+ * in batches; each batch is a single DELETE ... RETURNING feeding an INSERT, so a row is
+ * never lost or duplicated between the two tables. Unread notifications are never moved.
+ *
+ * The archive is range-partitioned by month of creation. Partitions are created before
+ * rows are moved into them, and whole months older than the archive retention are
+ * dropped, which is far cheaper than deleting rows. Archived history can still be paged
+ * through per user.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class NotificationRetentionService {
+
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final String ARCHIVE = "notifications_archive";
+
+    private static final String CREATE_ARCHIVE_SQL = "CREATE TABLE IF NOT EXISTS " + ARCHIVE + " (" +
+            "id BIGINT NOT NULL, user_id BIGINT NOT NULL, title VARCHAR(255) NOT NULL, " +
+            "message VARCHAR(1000) NOT NULL, type VARCHAR(255) NOT NULL, created_at TIMESTAMP(6) NOT NULL, " +
+            "read_at TIMESTAMP(6), related_transaction_id BIGINT, related_account_id BIGINT, " +
+            "archived_at TIMESTAMP(6) NOT NULL, PRIMARY KEY (id, created_at)) PARTITION BY RANGE (created_at)";
+
+    private static final String MOVE_SQL = "WITH moved AS (DELETE FROM notifications WHERE id IN (" +
+            "SELECT id FROM notifications WHERE is_read = true AND created_at < ? ORDER BY created_at LIMIT ?) " +
+            "RETURNING id, user_id, title, message, type, created_at, read_at, related_transaction_id, " +
+            "related_account_id) " +
+            "INSERT INTO " + ARCHIVE + " (id, user_id, title, message, type, created_at, read_at, " +
+            "related_transaction_id, related_account_id, archived_at) " +
+            "SELECT id, user_id, title, message, type, created_at, read_at, related_transaction_id, " +
+            "related_account_id, now() FROM moved";
+
+    private static final String PAGE_COLUMNS = "SELECT id, title, message, type, created_at, " +
+            "related_transaction_id, related_account_id FROM " + ARCHIVE + " WHERE user_id = ? ";
+
+    private static final RowMapper<NotificationDto> ARCHIVE_ROW = (rs, rowNum) -> new NotificationDto(
+            rs.getLong("id"), rs.getString("title"), rs.getString("message"), rs.getString("type"), true,
+            rs.getTimestamp("created_at").toLocalDateTime(),
+            rs.getObject("related_transaction_id", Long.class), rs.getObject("related_account_id", Long.class));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UserRepository userRepository;
+    private final ConcurrentIndexBuilder indexBuilder;
+
+    @Value("${banking.notifications.retention.read-after:90d}")
+    private Duration readRetention;
+
+    @Value("${banking.notifications.retention.archive-months:84}")
+    private int archiveMonths;
+
+    @Value("${banking.notifications.retention.batch-size:5000}")
+    private int batchSize;
+
+    @Value("${banking.notifications.retention.max-batches:200}")
+    private int maxBatches;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    // The archive is partitioned, which JPA cannot describe, so it is created here
+    @EventListener(ApplicationReadyEvent.class)
+    public void prepareArchive() {
+        try {
+            jdbcTemplate.execute(CREATE_ARCHIVE_SQL);
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_notifications_archive_user_created ON " +
+                    ARCHIVE + " (user_id, created_at, id)");
+        } catch (Exception e) {
+            log.warn("Could not prepare notification archive: {}", e.getMessage());
+        }
+        // Lets the nightly move find candidates without scanning unread rows; built
+        // concurrently so notifications keep being created meanwhile
+        indexBuilder.createIndex("idx_notifications_read_created",
+                "ON notifications (created_at) WHERE is_read = true");
+    }
+
+    @Scheduled(cron = "${banking.notifications.retention.cron:0 15 3 * * *}")
+    public void archiveAndPrune() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            int archived = archiveReadNotifications(LocalDateTime.now().minus(readRetention));
+            int dropped = dropExpiredPartitions();
+            log.info("Notification retention: archived {} read notifications, dropped {} archive partitions",
+                    archived, dropped);
+        } catch (Exception e) {
+            log.error("Notification retention run failed: {}", e.getMessage());
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Returns a page of the user's archived notifications, newest first.
+     */
+    public NotificationPageDto getArchivedPage(String username, String cursor, int size) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+
+        List<NotificationDto> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = jdbcTemplate.query(PAGE_COLUMNS + "ORDER BY created_at DESC, id DESC LIMIT ?",
+                    ARCHIVE_ROW, user.getId(), pageSize + 1);
+        } else {
+            KeysetCursor.Position<LocalDateTime> position = KeysetCursor.decodeDate(cursor);
+            Timestamp cursorDate = Timestamp.valueOf(position.sortValue());
+            rows = jdbcTemplate.query(PAGE_COLUMNS + "AND (created_at < ? OR (created_at = ? AND id < ?)) " +
+                            "ORDER BY created_at DESC, id DESC LIMIT ?",
+                    ARCHIVE_ROW, user.getId(), cursorDate, cursorDate, position.id(), pageSize + 1);
+        }
+
+        boolean hasMore = rows.size() > pageSize;
+        if (hasMore) {
+            rows = rows.subList(0, pageSize);
+        }
+        String nextCursor = null;
+        if (hasMore) {
+            NotificationDto last = rows.get(rows.size() - 1);
+            nextCursor = KeysetCursor.encode(last.getCreatedAt(), last.getId());
+        }
+        return new NotificationPageDto(rows, nextCursor, hasMore);
+    }
+
+    private int archiveReadNotifications(LocalDateTime cutoff) {
+        Timestamp oldest = jdbcTemplate.queryForObject(
+                "SELECT MIN(created_at) FROM notifications WHERE is_read = true AND created_at < ?",
+                Timestamp.class, Timestamp.valueOf(cutoff));
+        if (oldest == null) {
+            return 0;
+        }
+        for (YearMonth month = YearMonth.from(oldest.toLocalDateTime()); !month.isAfter(YearMonth.from(cutoff));
+             month = month.plusMonths(1)) {
+            createPartition(month);
+        }
+
+        int archived = 0;
+        for (int batch = 0; batch < maxBatches; batch++) {
+            int moved = jdbcTemplate.update(MOVE_SQL, Timestamp.valueOf(cutoff), batchSize);
+            archived += moved;
+            if (moved < batchSize) {
+                break;
+            }
+        }
+        return archived;
+    }
+
+    private void createPartition(YearMonth month) {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partitionName(month) + " PARTITION OF " + ARCHIVE +
+                " FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')");
+    }
+
+    private int dropExpiredPartitions() {
+        if (archiveMonths <= 0) {
+            return 0;
+        }
+        YearMonth oldestKept = YearMonth.now().minusMonths(archiveMonths);
+        List<String> partitions = jdbcTemplate.queryForList("SELECT c.relname FROM pg_inherits i " +
+                "JOIN pg_class c ON c.oid = i.inhrelid JOIN pg_class p ON p.oid = i.inhparent " +
+                "WHERE p.relname = ?", String.class, ARCHIVE);
+
+        int dropped = 0;
+        for (String partition : partitions) {
+            YearMonth month = partitionMonth(partition);
+            if (month != null && month.isBefore(oldestKept)) {
+                jdbcTemplate.execute("DROP TABLE IF EXISTS " + partition);
+                dropped++;
+            }
+        }
+        return dropped;
+    }
+
+    private static String partitionName(YearMonth month) {
+        return String.format("%s_y%04dm%02d", ARCHIVE, month.getYear(), month.getMonthValue());
+    }
+
+    private static YearMonth partitionMonth(String partition) {
+        String prefix = ARCHIVE + "_y";
+        if (!partition.startsWith(prefix) || partition.length() != prefix.length() + 7) {
+            return null;
+        }
+        try {
+            String suffix = partition.substring(prefix.length());
+            return YearMonth.of(Integer.parseInt(suffix.substring(0, 4)), Integer.parseInt(suffix.substring(5)));
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+}
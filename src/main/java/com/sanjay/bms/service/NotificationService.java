@@ -2,9 +2,13 @@ package com.sanjay.bms.service;
 
 import com.sanjay.bms.entity.Notification;
 import com.sanjay.bms.entity.User;
+import com.sanjay.bms.event.NotificationCreatedEvent;
+import com.sanjay.bms.event.NotificationsChangedEvent;
+import com.sanjay.bms.mapper.NotificationMapper;
 import com.sanjay.bms.repository.NotificationRepository;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
@@ -21,6 +25,9 @@ public class NotificationService {
 
     private final NotificationRepository notificationRepository;
     private final JavaMailSender mailSender; // Configure in application.properties
+    private final ApplicationEventPublisher eventPublisher;
+    private final UnreadNotificationCounter unreadNotificationCounter;
+    private final OutboxService outboxService;
 
     @Transactional
     public void createNotification(User user, String title, String message, String type) {
@@ -31,25 +38,27 @@ public class NotificationService {
         notification.setType(type);
         notification.setIsRead(false);
         notification.setCreatedAt(LocalDateTime.now());
-        notificationRepository.save(notification);
+        Notification saved = notificationRepository.save(notification);
+        unreadNotificationCounter.adjust(user.getUsername(), 1);
+        eventPublisher.publishEvent(new NotificationsChangedEvent(user.getUsername()));
+        eventPublisher.publishEvent(new NotificationCreatedEvent(user.getUsername(),
+                NotificationMapper.mapToNotificationDto(saved)));
     }
 
     @Transactional
-    public void notifyDeposit(User user, String accountNumber, BigDecimal amount) {
+    public void notifyDeposit(String username, String email, String accountNumber, BigDecimal amount) {
         String title = "Deposit Successful";
         String message = String.format("₹%s has been deposited to your account %s",
                 amount, maskAccountNumber(accountNumber));
-        createNotification(user, title, message, "TRANSACTION");
-        sendEmail(user.getEmail(), title, message);
+        queue(username, email, title, message, "TRANSACTION", null);
     }
 
     @Transactional
-    public void notifyWithdrawal(User user, String accountNumber, BigDecimal amount) {
+    public void notifyWithdrawal(String username, String email, String accountNumber, BigDecimal amount) {
         String title = "Withdrawal Successful";
         String message = String.format("₹%s has been withdrawn from your account %s",
                 amount, maskAccountNumber(accountNumber));
-        createNotification(user, title, message, "TRANSACTION");
-        sendEmail(user.getEmail(), title, message);
+        queue(username, email, title, message, "TRANSACTION", null);
     }
 
     @Transactional
@@ -59,15 +68,13 @@ public class NotificationService {
         String senderTitle = "Transfer Successful";
         String senderMessage = String.format("₹%s transferred to account %s. Ref: %s",
                 amount, maskAccountNumber(toAccount), referenceNumber);
-        createNotification(fromUser, senderTitle, senderMessage, "TRANSACTION");
-        sendEmail(fromUser.getEmail(), senderTitle, senderMessage);
+        queue(fromUser, senderTitle, senderMessage, "TRANSACTION", "transfer:" + referenceNumber + ":sender");
 
         // Notify receiver
         String receiverTitle = "Money Received";
         String receiverMessage = String.format("₹%s received from account %s. Ref: %s",
                 amount, maskAccountNumber(fromAccount), referenceNumber);
-        createNotification(toUser, receiverTitle, receiverMessage, "TRANSACTION");
-        sendEmail(toUser.getEmail(), receiverTitle, receiverMessage);
+        queue(toUser, receiverTitle, receiverMessage, "TRANSACTION", "transfer:" + referenceNumber + ":receiver");
     }
 
     @Transactional
@@ -75,8 +82,7 @@ public class NotificationService {
         String title = "Account Frozen";
         String message = String.format("Your account %s has been frozen. Reason: %s. Contact support.",
                 maskAccountNumber(accountNumber), reason);
-        createNotification(user, title, message, "ACCOUNT");
-        sendEmail(user.getEmail(), title, message);
+        queue(user, title, message, "ACCOUNT", null);
     }
 
     @Transactional
@@ -84,16 +90,14 @@ public class NotificationService {
         String title = "New Login Detected";
         String message = String.format("New login to your account from IP: %s at %s",
                 ipAddress, LocalDateTime.now());
-        createNotification(user, title, message, "SECURITY");
-        sendEmail(user.getEmail(), title, message);
+        queue(user, title, message, "SECURITY", null);
     }
 
     @Transactional
     public void notifyHighValueTransaction(User user, BigDecimal amount, String type) {
         String title = "High Value Transaction Alert";
         String message = String.format("A %s of ₹%s was performed on your account", type, amount);
-        createNotification(user, title, message, "SECURITY");
-        sendEmail(user.getEmail(), title, message);
+        queue(user, title, message, "SECURITY", null);
     }
 
     public List<Notification> getUnreadNotifications(User user) {
@@ -108,32 +112,46 @@ public class NotificationService {
     public void markAsRead(Long notificationId) {
         Notification notification = notificationRepository.findById(notificationId)
                 .orElseThrow(() -> new RuntimeException("Notification not found"));
-        notification.setIsRead(true);
-        notification.setReadAt(LocalDateTime.now());
-        notificationRepository.save(notification);
+        String username = notification.getUser().getUsername();
+        if (notificationRepository.markAsRead(notificationId, LocalDateTime.now()) > 0) {
+            unreadNotificationCounter.adjust(username, -1);
+            eventPublisher.publishEvent(new NotificationsChangedEvent(username));
+        }
     }
 
     @Transactional
     public void markAllAsRead(User user) {
-        List<Notification> notifications = notificationRepository.findByUserAndIsReadFalse(user);
-        notifications.forEach(n -> {
-            n.setIsRead(true);
-            n.setReadAt(LocalDateTime.now());
-        });
-        notificationRepository.saveAll(notifications);
+        int updated = notificationRepository.markAllAsRead(user, LocalDateTime.now());
+        if (updated > 0) {
+            unreadNotificationCounter.adjust(user.getUsername(), -updated);
+            eventPublisher.publishEvent(new NotificationsChangedEvent(user.getUsername()));
+        }
+    }
+
+    /**
+     * Sends an email now; failures are thrown so OutboxRelay can retry.
+     */
+    public void deliverEmail(String to, String subject, String text) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setTo(to);
+        message.setSubject(subject);
+        message.setText(text);
+        message.setFrom("noreply@bankingapp.com");
+        mailSender.send(message);
+        log.info("Email sent to {}", to);
+    }
+
+    // Queued in the caller's transaction and delivered by OutboxRelay once it commits
+    private void queue(User user, String title, String message, String type, String dedupKey) {
+        queue(user.getUsername(), user.getEmail(), title, message, type, dedupKey);
     }
 
-    private void sendEmail(String to, String subject, String text) {
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setTo(to);
-            message.setSubject(subject);
-            message.setText(text);
-            message.setFrom("noreply@bankingapp.com");
-            mailSender.send(message);
-            log.info("Email sent to {}", to);
-        } catch (Exception e) {
-            log.error("Failed to send email to {}: {}", to, e.getMessage());
+    private void queue(String username, String email, String title, String message, String type, String dedupKey) {
+        outboxService.enqueue(OutboxService.NOTIFICATION, dedupKey != null ? dedupKey + ":notification" : null,
+                new OutboxService.NotificationPayload(username, title, message, type));
+        if (email != null && !email.isBlank()) {
+            outboxService.enqueue(OutboxService.EMAIL, dedupKey != null ? dedupKey + ":email" : null,
+                    new OutboxService.EmailPayload(email, title, message));
         }
     }
 
@@ -0,0 +1,140 @@
+package com.sanjay.bms.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sanjay.bms.dto.NotificationDto;
+import com.sanjay.bms.event.NotificationCreatedEvent;
+import com.sanjay.bms.event.NotificationsChangedEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.UUID;
+
+/**
+ * Carries notification stream events between nodes with Postgres LISTEN/NOTIFY.
+ *
+ * A notification may be created, read or deleted on any node (outbox batches are relayed
+ * by whichever node claims them), while the user's stream is connected to one node. Each
+ * change is sent as a NOTIFY in the transaction that makes it, so Postgres delivers it to
+ * every node on commit and drops it on rollback. Every node listens on its own connection,
+ * outside the pool, and passes changes made elsewhere to NotificationStreamService.
+ * Changes made on this node are already pushed locally and are skipped.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class NotificationStreamBroadcaster {
+
+    private static final String CHANNEL = "notification_stream";
+    // NOTIFY payloads are limited to 8000 bytes; larger notifications only send the unread count
+    private static final int MAX_PAYLOAD_BYTES = 7000;
+    private static final int POLL_TIMEOUT_MS = 10000;
+    private static final long RECONNECT_DELAY_MS = 5000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final DataSourceProperties dataSourceProperties;
+    private final NotificationStreamService notificationStreamService;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private volatile boolean running;
+
+    // Not transactional listeners: the NOTIFY has to join the transaction that made the change
+    @EventListener
+    public void onNotificationCreated(NotificationCreatedEvent event) {
+        send(new Message(nodeId, event.getUsername(), event.getNotification()));
+    }
+
+    @EventListener
+    public void onNotificationsChanged(NotificationsChangedEvent event) {
+        send(new Message(nodeId, event.getUsername(), null));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        Thread listener = new Thread(this::listen, "notification-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+    }
+
+    private void send(Message message) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(message);
+            if (payload.getBytes(StandardCharsets.UTF_8).length > MAX_PAYLOAD_BYTES) {
+                payload = objectMapper.writeValueAsString(new Message(nodeId, message.username(), null));
+            }
+        } catch (Exception e) {
+            log.warn("Could not encode notification stream event for {}: {}", message.username(), e.getMessage());
+            return;
+        }
+        jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> null, CHANNEL, payload);
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                log.info("Listening for notification stream events from other nodes");
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MS);
+                    if (notifications == null) {
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        receive(notification.getParameter());
+                    }
+                }
+            } catch (Exception e) {
+                if (!running) {
+                    return;
+                }
+                // Events sent meanwhile are missed; cached unread counts still expire on their own
+                log.warn("Notification stream listener failed, reconnecting: {}", e.getMessage());
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MS);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void receive(String payload) {
+        try {
+            Message message = objectMapper.readValue(payload, Message.class);
+            if (nodeId.equals(message.origin())) {
+                return;
+            }
+            notificationStreamService.onRemoteChange(message.username(), message.notification());
+        } catch (Exception e) {
+            log.warn("Ignoring unreadable notification stream event: {}", e.getMessage());
+        }
+    }
+
+    // notification is null when only the unread count changed
+    public record Message(String origin, String username, NotificationDto notification) {
+    }
+}
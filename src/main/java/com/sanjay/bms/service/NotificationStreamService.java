@@ -0,0 +1,213 @@
+package com.sanjay.bms.service;
+
+import com.sanjay.bms.dto.NotificationDto;
+import com.sanjay.bms.event.NotificationCreatedEvent;
+import com.sanjay.bms.event.NotificationsChangedEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pushes notifications to logged-in users over Server-Sent Events.
+ *
+ * Each open stream is registered under its username. Events are queued per stream and
+ * written by the notificationPushExecutor, so a slow client never holds up the thread
+ * that committed the notification. A stream whose queue fills up is closed; the client
+ * reconnects and receives its current unread count. A heartbeat comment keeps idle
+ * streams open through proxies and detects dead ones.
+ *
+ * Streams are held by the node the user connected to. Changes made on other nodes arrive
+ * through NotificationStreamBroadcaster and are pushed the same way.
+ */
+@Slf4j
+@Service
+public class NotificationStreamService {
+
+    private final UnreadNotificationCounter unreadNotificationCounter;
+    private final TaskExecutor pushExecutor;
+
+    @Value("${banking.notifications.stream.timeout:30m}")
+    private Duration timeout;
+
+    @Value("${banking.notifications.stream.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${banking.notifications.stream.max-per-user:5}")
+    private int maxPerUser;
+
+    private final Map<String, List<Connection>> connections = new ConcurrentHashMap<>();
+
+    public NotificationStreamService(UnreadNotificationCounter unreadNotificationCounter,
+                                     @Qualifier("notificationPushExecutor") TaskExecutor pushExecutor) {
+        this.unreadNotificationCounter = unreadNotificationCounter;
+        this.pushExecutor = pushExecutor;
+    }
+
+    /**
+     * Opens a stream for the user. The first event is the current unread count, so a
+     * reconnecting client is back in sync without another request.
+     */
+    public SseEmitter subscribe(String username) {
+        Connection connection = new Connection(username, new SseEmitter(timeout.toMillis()),
+                new ArrayBlockingQueue<>(queueCapacity));
+        connection.emitter.onCompletion(() -> unregister(connection));
+        connection.emitter.onTimeout(() -> close(connection));
+        connection.emitter.onError(e -> close(connection));
+
+        List<Connection> userConnections = connections.compute(username, (u, existing) -> {
+            List<Connection> list = existing != null ? existing : new CopyOnWriteArrayList<>();
+            list.add(connection);
+            return list;
+        });
+        // Oldest streams (e.g. forgotten tabs) make room for new ones
+        while (userConnections.size() > maxPerUser) {
+            close(userConnections.get(0));
+        }
+
+        send(connection, SseEmitter.event().name("unread").data(countUnread(username)));
+        log.debug("Notification stream opened for {} ({} open)", username, userConnections.size());
+        return connection.emitter;
+    }
+
+    public boolean isConnected(String username) {
+        List<Connection> userConnections = connections.get(username);
+        return userConnections != null && !userConnections.isEmpty();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNotificationCreated(NotificationCreatedEvent event) {
+        publish(event.getUsername(), "notification", event.getNotification());
+    }
+
+    // Covers reads from another tab or device as well as new notifications
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNotificationsChanged(NotificationsChangedEvent event) {
+        if (isConnected(event.getUsername())) {
+            publish(event.getUsername(), "unread", countUnread(event.getUsername()));
+        }
+    }
+
+    /**
+     * A notification was created, read or deleted on another node. The cached unread count
+     * is dropped either way, so the badge is read from the database again.
+     */
+    public void onRemoteChange(String username, NotificationDto notification) {
+        unreadNotificationCounter.invalidate(username);
+        if (!isConnected(username)) {
+            return;
+        }
+        if (notification != null) {
+            publish(username, "notification", notification);
+        }
+        publish(username, "unread", countUnread(username));
+    }
+
+    @Scheduled(fixedDelayString = "${banking.notifications.stream.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        connections.values().forEach(userConnections ->
+                userConnections.forEach(connection -> send(connection, SseEmitter.event().comment("ping"))));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        connections.values().forEach(userConnections -> userConnections.forEach(this::close));
+    }
+
+    private void publish(String username, String name, Object data) {
+        List<Connection> userConnections = connections.get(username);
+        if (userConnections == null) {
+            return;
+        }
+        for (Connection connection : userConnections) {
+            send(connection, SseEmitter.event().name(name).data(data));
+        }
+    }
+
+    private void send(Connection connection, SseEmitter.SseEventBuilder event) {
+        if (!connection.queue.offer(event)) {
+            log.debug("Notification stream for {} is not keeping up, closing it", connection.username);
+            close(connection);
+            return;
+        }
+        schedule(connection);
+    }
+
+    // At most one drain task per connection, so events are written in order
+    private void schedule(Connection connection) {
+        if (connection.queue.isEmpty() || !connection.draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            pushExecutor.execute(() -> drain(connection));
+        } catch (TaskRejectedException e) {
+            // Left queued; the next event or heartbeat tries again
+            connection.draining.set(false);
+        }
+    }
+
+    private void drain(Connection connection) {
+        try {
+            SseEmitter.SseEventBuilder event;
+            while ((event = connection.queue.poll()) != null) {
+                connection.emitter.send(event);
+            }
+        } catch (Exception e) {
+            // Client went away
+            close(connection);
+            return;
+        } finally {
+            connection.draining.set(false);
+        }
+        schedule(connection);
+    }
+
+    private long countUnread(String username) {
+        return unreadNotificationCounter.get(username);
+    }
+
+    private void close(Connection connection) {
+        unregister(connection);
+        connection.queue.clear();
+        try {
+            connection.emitter.complete();
+        } catch (Exception ignored) {
+            // Already completed
+        }
+    }
+
+    private void unregister(Connection connection) {
+        connections.computeIfPresent(connection.username, (username, userConnections) -> {
+            userConnections.remove(connection);
+            return userConnections.isEmpty() ? null : userConnections;
+        });
+    }
+
+    private static final class Connection {
+        private final String username;
+        private final SseEmitter emitter;
+        private final Queue<SseEmitter.SseEventBuilder> queue;
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private Connection(String username, SseEmitter emitter, Queue<SseEmitter.SseEventBuilder> queue) {
+            this.username = username;
+            this.emitter = emitter;
+            this.queue = queue;
+        }
+    }
+}
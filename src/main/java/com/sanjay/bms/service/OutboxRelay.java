@@ -0,0 +1,236 @@
+package com.sanjay.bms.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sanjay.bms.entity.User;
+import com.sanjay.bms.repository.OutboxEventRepository;
+import com.sanjay.bms.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Delivers outbox events written by OutboxService.
+ *
+ * Due events are claimed in batches with FOR UPDATE SKIP LOCKED and leased for a while,
+ * so several nodes can relay side by side and a batch abandoned by a crashed node is
+ * picked up again once its lease runs out. Notifications for a whole batch are created
+ * first, in one transaction together with marking their events SENT, so each is created
+ * exactly once. Emails are then handed to the email executor, so slow SMTP round trips
+ * never hold up the scheduler thread or the notifications behind them; each is marked
+ * after it is sent, so a crash in between can send one twice. Failures are retried with
+ * exponential backoff up to max-attempts, after which the event is left FAILED for
+ * inspection.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class OutboxRelay {
+
+    private static final String CLAIM_SQL = "UPDATE outbox_events SET status = 'PROCESSING', next_attempt_at = ? " +
+            "WHERE id IN (SELECT id FROM outbox_events WHERE status IN ('PENDING', 'PROCESSING') " +
+            "AND next_attempt_at <= ? ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED) " +
+            "RETURNING id, event_type, payload, attempts";
+
+    private static final RowMapper<ClaimedEvent> CLAIMED_ROW = (rs, rowNum) -> new ClaimedEvent(
+            rs.getLong("id"), rs.getString("event_type"), rs.getString("payload"), rs.getInt("attempts"));
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final UserRepository userRepository;
+    private final NotificationService notificationService;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final PlatformTransactionManager transactionManager;
+    private final Executor emailTaskExecutor;
+
+    @Value("${banking.outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${banking.outbox.max-batches-per-poll:10}")
+    private int maxBatchesPerPoll;
+
+    @Value("${banking.outbox.lease:5m}")
+    private Duration lease;
+
+    @Value("${banking.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${banking.outbox.retry-base-delay:10s}")
+    private Duration retryBaseDelay;
+
+    @Value("${banking.outbox.sent-retention:7d}")
+    private Duration sentRetention;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Scheduled(fixedDelayString = "${banking.outbox.poll-interval-ms:1000}")
+    public void relay() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            for (int batch = 0; batch < maxBatchesPerPoll; batch++) {
+                List<ClaimedEvent> events = claim();
+                if (events.isEmpty()) {
+                    return;
+                }
+                if (!deliver(events) || events.size() < batchSize) {
+                    return;
+                }
+            }
+        } catch (Exception e) {
+            log.error("Outbox relay run failed: {}", e.getMessage());
+        } finally {
+            running.set(false);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${banking.outbox.cleanup-interval-ms:3600000}")
+    public void removeSent() {
+        int removed = outboxEventRepository.deleteSentBefore(LocalDateTime.now().minus(sentRetention));
+        if (removed > 0) {
+            log.info("Removed {} delivered outbox events", removed);
+        }
+    }
+
+    private List<ClaimedEvent> claim() {
+        LocalDateTime now = LocalDateTime.now();
+        return jdbcTemplate.query(CLAIM_SQL, CLAIMED_ROW,
+                Timestamp.valueOf(now.plus(lease)), Timestamp.valueOf(now), batchSize);
+    }
+
+    // False when the email executor is full, so no more events are claimed this run
+    private boolean deliver(List<ClaimedEvent> events) {
+        List<ClaimedEvent> notifications = new ArrayList<>();
+        List<ClaimedEvent> emails = new ArrayList<>();
+
+        for (ClaimedEvent event : events) {
+            switch (event.eventType()) {
+                case OutboxService.NOTIFICATION -> notifications.add(event);
+                case OutboxService.EMAIL -> emails.add(event);
+                default -> retryLater(event, new IllegalStateException("Unknown event type " + event.eventType()));
+            }
+        }
+        if (!notifications.isEmpty()) {
+            deliverNotifications(notifications);
+        }
+        for (int i = 0; i < emails.size(); i++) {
+            if (!sendEmail(emails.get(i))) {
+                emails.subList(i, emails.size()).forEach(this::release);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Hands an email to the email executor. Returns false when the executor is full, in
+     * which case the caller gives the event back for a later run.
+     */
+    private boolean sendEmail(ClaimedEvent event) {
+        try {
+            emailTaskExecutor.execute(() -> {
+                try {
+                    OutboxService.EmailPayload email =
+                            objectMapper.readValue(event.payload(), OutboxService.EmailPayload.class);
+                    notificationService.deliverEmail(email.to(), email.subject(), email.text());
+                    outboxEventRepository.markSent(List.of(event.id()), LocalDateTime.now());
+                } catch (Exception e) {
+                    retryLater(event, e);
+                }
+            });
+            return true;
+        } catch (TaskRejectedException e) {
+            return false;
+        }
+    }
+
+    // Not counted as an attempt: the email was never tried
+    private void release(ClaimedEvent event) {
+        try {
+            outboxEventRepository.release(event.id(), LocalDateTime.now().plus(retryBaseDelay));
+        } catch (Exception e) {
+            // The lease runs out and the event is claimed again
+            log.warn("Could not release outbox event {}: {}", event.id(), e.getMessage());
+        }
+    }
+
+    private void deliverNotifications(List<ClaimedEvent> events) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        try {
+            transaction.executeWithoutResult(status -> {
+                for (ClaimedEvent event : events) {
+                    createNotification(event);
+                }
+                outboxEventRepository.markSent(events.stream().map(ClaimedEvent::id).toList(), LocalDateTime.now());
+            });
+        } catch (Exception batchFailure) {
+            // Find the bad event(s) by delivering the batch one at a time
+            for (ClaimedEvent event : events) {
+                try {
+                    transaction.executeWithoutResult(status -> {
+                        createNotification(event);
+                        outboxEventRepository.markSent(List.of(event.id()), LocalDateTime.now());
+                    });
+                } catch (Exception e) {
+                    retryLater(event, e);
+                }
+            }
+        }
+    }
+
+    private void createNotification(ClaimedEvent event) {
+        OutboxService.NotificationPayload notification;
+        try {
+            notification = objectMapper.readValue(event.payload(), OutboxService.NotificationPayload.class);
+        } catch (Exception e) {
+            throw new IllegalStateException("Unreadable notification payload", e);
+        }
+        User user = userRepository.findByUsername(notification.username())
+                .orElseThrow(() -> new IllegalStateException("User not found: " + notification.username()));
+        notificationService.createNotification(user, notification.title(), notification.message(),
+                notification.type());
+    }
+
+    private void retryLater(ClaimedEvent event, Exception cause) {
+        int attempts = event.attempts() + 1;
+        boolean giveUp = attempts >= maxAttempts;
+        // 10s, 20s, 40s, ... capped at an hour
+        long delaySeconds = Math.min(retryBaseDelay.toSeconds() << Math.min(attempts - 1, 20), 3600);
+        String error = cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+        if (error.length() > 500) {
+            error = error.substring(0, 500);
+        }
+
+        try {
+            outboxEventRepository.markFailed(event.id(), giveUp ? "FAILED" : "PENDING",
+                    LocalDateTime.now().plusSeconds(delaySeconds), error);
+        } catch (Exception e) {
+            // The lease runs out and the event is claimed again
+            log.warn("Could not record failure of outbox event {}: {}", event.id(), e.getMessage());
+        }
+        if (giveUp) {
+            log.error("Outbox event {} ({}) failed after {} attempts: {}", event.id(), event.eventType(), attempts, error);
+        } else {
+            log.warn("Outbox event {} ({}) failed, retrying in {}s: {}", event.id(), event.eventType(),
+                    delaySeconds, error);
+        }
+    }
+
+    private record ClaimedEvent(long id, String eventType, String payload, int attempts) {
+    }
+}
@@ -0,0 +1,51 @@
+package com.sanjay.bms.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * Writes side effects (notifications, emails) to the outbox_events table as part of the
+ * business transaction that causes them. They commit or roll back with it and are
+ * delivered afterwards by OutboxRelay, so slow delivery never holds account row locks.
+ */
+@RequiredArgsConstructor
+@Service
+public class OutboxService {
+
+    public static final String NOTIFICATION = "NOTIFICATION";
+    public static final String EMAIL = "EMAIL";
+
+    // A repeated dedup key is ignored instead of failing (and rolling back) the caller
+    private static final String INSERT_SQL = "INSERT INTO outbox_events " +
+            "(event_type, dedup_key, payload, status, attempts, next_attempt_at, created_at) " +
+            "VALUES (?, ?, ?, 'PENDING', 0, ?, ?) ON CONFLICT (dedup_key) DO NOTHING";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(String eventType, String dedupKey, Object payload) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize " + eventType + " outbox event", e);
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update(INSERT_SQL, eventType, dedupKey, json, now, now);
+    }
+
+    public record NotificationPayload(String username, String title, String message, String type) {
+    }
+
+    public record EmailPayload(String to, String subject, String text) {
+    }
+}
@@ -0,0 +1,60 @@
+package com.sanjay.bms.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Keeps rendered statements in the statement_artifacts table rather than on the rendering
+ * node's disk, so any node can serve a download or remove an expired artifact.
+ */
+@RequiredArgsConstructor
+@Service
+public class StatementArtifactStore {
+
+    // Replaces a partial write left by an earlier attempt at the same job
+    private static final String SAVE_SQL = "INSERT INTO statement_artifacts (job_id, content) VALUES (?, ?) " +
+            "ON CONFLICT (job_id) DO UPDATE SET content = EXCLUDED.content";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void save(String jobId, Path file) throws IOException {
+        long size = Files.size(file);
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Statement too large to store: " + size + " bytes");
+        }
+        try (InputStream in = Files.newInputStream(file)) {
+            jdbcTemplate.update(SAVE_SQL, ps -> {
+                ps.setString(1, jobId);
+                ps.setBinaryStream(2, in, (int) size);
+            });
+        }
+    }
+
+    public boolean exists(String jobId) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM statement_artifacts WHERE job_id = ?)", Boolean.class, jobId));
+    }
+
+    // Read in full so no connection is held while the client downloads; null when missing
+    public byte[] load(String jobId) {
+        List<byte[]> content = jdbcTemplate.query("SELECT content FROM statement_artifacts WHERE job_id = ?",
+                (rs, rowNum) -> rs.getBytes(1), jobId);
+        return content.isEmpty() ? null : content.get(0);
+    }
+
+    public void delete(Collection<String> jobIds) {
+        if (jobIds.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("DELETE FROM statement_artifacts WHERE job_id = ?",
+                jobIds.stream().map(id -> new Object[]{id}).toList());
+    }
+}
@@ -0,0 +1,404 @@
+package com.sanjay.bms.service;
+
+import com.sanjay.bms.dto.StatementJobDto;
+import com.sanjay.bms.dto.StatementRequest;
+import com.sanjay.bms.entity.Account;
+import com.sanjay.bms.entity.StatementJob;
+import com.sanjay.bms.exception.ResourceNotFoundException;
+import com.sanjay.bms.mapper.StatementJobMapper;
+import com.sanjay.bms.repository.AccountRepository;
+import com.sanjay.bms.repository.StatementJobRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Renders statements in the background instead of on request threads.
+ *
+ * Jobs are rows in statement_jobs; a job moves PENDING -> QUEUED -> RUNNING -> COMPLETED
+ * (or FAILED) through conditional updates, so a job is only ever rendered once even if
+ * dispatch runs concurrently. Rendering happens on the bounded statementExecutor; when it
+ * is saturated jobs simply stay PENDING until the next dispatch. Artifacts are rendered to a
+ * temporary file, stored in the database (StatementArtifactStore) with a SHA-256 checksum,
+ * and removed once their TTL has passed, so any node can serve or expire them.
+ *
+ * A queued or running job records the node holding it and a lease that node keeps renewing.
+ * Only jobs whose lease has run out, because their node stopped, are put back to PENDING,
+ * so jobs another live node is rendering are left alone.
+ */
+@Slf4j
+@Service
+public class StatementJobService {
+
+    private static final int DISPATCH_BATCH = 50;
+    private static final int MONTH_END_BATCH = 1000;
+
+    // At most one live (pending, queued or running) job per statement
+    private static final String LIVE_PERIOD_INDEX = "uk_statement_jobs_live_period";
+    private static final String LIVE_STATUSES = "('PENDING', 'QUEUED', 'RUNNING')";
+
+    /*
+     * Queues month-end jobs for the next MONTH_END_BATCH active accounts after the given id
+     * that have no usable statement for the period, in one statement. Returns the last
+     * account id scanned (null once past the end) and how many jobs were queued; a job
+     * another node queued meanwhile is skipped by the unique index on live jobs.
+     */
+    private static final String QUEUE_MONTH_END_SQL = "WITH batch AS (" +
+            "SELECT a.id, u.username FROM accounts a JOIN users u ON u.id = a.user_id " +
+            "WHERE a.id > ? AND a.account_status = 'Active' ORDER BY a.id LIMIT ?), " +
+            "queued AS (INSERT INTO statement_jobs (id, username, account_id, start_date, end_date, format, " +
+            "status, pre_rendered, created_at) " +
+            "SELECT CAST(gen_random_uuid() AS varchar), b.username, b.id, ?, ?, 'PDF', 'PENDING', true, ? " +
+            "FROM batch b WHERE NOT EXISTS (SELECT 1 FROM statement_jobs j WHERE j.account_id = b.id " +
+            "AND j.format = 'PDF' AND j.start_date = ? AND j.end_date = ? " +
+            "AND j.status IN ('PENDING', 'QUEUED', 'RUNNING', 'COMPLETED') " +
+            "AND (j.expires_at IS NULL OR j.expires_at > ?)) " +
+            "ON CONFLICT DO NOTHING RETURNING 1) " +
+            "SELECT (SELECT MAX(id) FROM batch) AS last_id, (SELECT COUNT(*) FROM queued) AS queued";
+
+    // Identifies this instance as the owner of the jobs it queues
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final StatementJobRepository statementJobRepository;
+    private final AccountRepository accountRepository;
+    private final StatementService statementService;
+    private final StatementArtifactStore artifactStore;
+    private final ClusterLock clusterLock;
+    private final ConcurrentIndexBuilder indexBuilder;
+    private final TaskExecutor statementExecutor;
+
+    @Value("${banking.statements.artifact-ttl:72h}")
+    private Duration artifactTtl;
+
+    @Value("${banking.statements.pre-rendered-ttl:35d}")
+    private Duration preRenderedTtl;
+
+    @Value("${banking.statements.lease:2m}")
+    private Duration lease;
+
+    public StatementJobService(StatementJobRepository statementJobRepository,
+                               AccountRepository accountRepository,
+                               StatementService statementService,
+                               StatementArtifactStore artifactStore,
+                               ClusterLock clusterLock,
+                               ConcurrentIndexBuilder indexBuilder,
+                               @Qualifier("statementExecutor") TaskExecutor statementExecutor) {
+        this.statementJobRepository = statementJobRepository;
+        this.accountRepository = accountRepository;
+        this.statementService = statementService;
+        this.artifactStore = artifactStore;
+        this.clusterLock = clusterLock;
+        this.indexBuilder = indexBuilder;
+        this.statementExecutor = statementExecutor;
+    }
+
+    /**
+     * Validates the request and queues a job. An identical statement that is already
+     * rendered or in progress (including a month-end pre-render) is returned instead.
+     */
+    public StatementJobDto submit(StatementRequest request, String username) {
+        Account account = statementService.getStatementAccount(request, username);
+        String format = normalizeFormat(request.getFormat());
+        if (request.getStartDate().isAfter(request.getEndDate())) {
+            throw new IllegalArgumentException("Start date must be before end date");
+        }
+
+        List<StatementJob> existing = statementJobRepository.findReusable(account.getId(), format,
+                request.getStartDate(), request.getEndDate(), LocalDateTime.now(), PageRequest.of(0, 1));
+        if (!existing.isEmpty()) {
+            return StatementJobMapper.mapToStatementJobDto(existing.get(0));
+        }
+
+        StatementJob job;
+        try {
+            job = createJob(account.getId(), username, request.getStartDate(), request.getEndDate(),
+                    format, false);
+        } catch (DataIntegrityViolationException e) {
+            // An identical job was queued in the meantime; hand that one out
+            return statementJobRepository.findReusable(account.getId(), format, request.getStartDate(),
+                            request.getEndDate(), LocalDateTime.now(), PageRequest.of(0, 1)).stream()
+                    .findFirst()
+                    .map(StatementJobMapper::mapToStatementJobDto)
+                    .orElseThrow(() -> e);
+        }
+        dispatch(job.getId());
+        return StatementJobMapper.mapToStatementJobDto(job);
+    }
+
+    public StatementJobDto getJob(String jobId, String username) {
+        return StatementJobMapper.mapToStatementJobDto(findOwnedJob(jobId, username));
+    }
+
+    public List<StatementJobDto> getJobs(String username) {
+        return statementJobRepository.findTop50ByUsernameOrderByCreatedAtDesc(username).stream()
+                .map(StatementJobMapper::mapToStatementJobDto)
+                .toList();
+    }
+
+    /**
+     * Returns a completed job that has not expired yet.
+     */
+    public StatementJob getDownloadableJob(String jobId, String username) {
+        StatementJob job = findOwnedJob(jobId, username);
+        if (!"COMPLETED".equals(job.getStatus())) {
+            throw new IllegalArgumentException("Statement is not ready yet (status " + job.getStatus() + ")");
+        }
+        if (job.getExpiresAt() != null && job.getExpiresAt().isBefore(LocalDateTime.now())) {
+            throw new ResourceNotFoundException("Statement has expired, please request it again");
+        }
+        return job;
+    }
+
+    /**
+     * The rendered statement of a downloadable job. Jobs completed before artifacts moved
+     * to the database still have a filePath, which only the node that rendered them can serve.
+     */
+    public Resource getArtifact(StatementJob job) {
+        byte[] content = artifactStore.load(job.getId());
+        if (content != null) {
+            return new ByteArrayResource(content);
+        }
+        if (job.getFilePath() != null && Files.exists(Paths.get(job.getFilePath()))) {
+            return new FileSystemResource(job.getFilePath());
+        }
+        throw new ResourceNotFoundException("Statement file not found");
+    }
+
+    // Picks up jobs that could not be handed to the executor when they were submitted
+    @Scheduled(fixedDelayString = "${banking.statements.dispatch-interval-ms:15000}")
+    public void dispatchPending() {
+        for (String jobId : statementJobRepository.findPendingIds(PageRequest.of(0, DISPATCH_BATCH))) {
+            if (!dispatch(jobId)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Pre-renders last month's PDF statement for every active account, off-peak. The cron
+     * fires on every node; the first to take the lock queues the jobs, a thousand accounts
+     * per statement, and the others skip the run.
+     */
+    @Scheduled(cron = "${banking.statements.month-end-cron:0 30 2 1 * *}")
+    public void preRenderMonthEnd() {
+        LocalDate firstOfMonth = LocalDate.now().withDayOfMonth(1);
+        LocalDateTime start = firstOfMonth.minusMonths(1).atStartOfDay();
+        LocalDateTime end = firstOfMonth.atStartOfDay().minusNanos(1000);
+        Timestamp startTs = Timestamp.valueOf(start);
+        Timestamp endTs = Timestamp.valueOf(end);
+
+        long[] created = {0};
+        boolean ran = clusterLock.runExclusively("statements:month-end", jdbc -> {
+            Long after = 0L;
+            while (after != null) {
+                Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+                Object[] result = jdbc.queryForObject(QUEUE_MONTH_END_SQL,
+                        (rs, rowNum) -> new Object[]{rs.getObject("last_id", Long.class), rs.getLong("queued")},
+                        after, MONTH_END_BATCH, startTs, endTs, now, startTs, endTs, now);
+                after = (Long) result[0];
+                created[0] += (Long) result[1];
+            }
+        });
+        if (!ran) {
+            log.info("Month-end statements are being queued by another node");
+            return;
+        }
+        // Rendered by dispatchPending, a batch at a time, behind user requests
+        log.info("Queued {} month-end statements for {} to {}", created[0], start.toLocalDate(), end.toLocalDate());
+    }
+
+    @Scheduled(fixedDelayString = "${banking.statements.cleanup-interval-ms:3600000}")
+    public void removeExpiredArtifacts() {
+        List<StatementJob> expired = statementJobRepository.findByStatusAndExpiresAtBefore(
+                "COMPLETED", LocalDateTime.now());
+        for (StatementJob job : expired) {
+            deleteQuietly(job.getFilePath());
+            job.setStatus("EXPIRED");
+            job.setFilePath(null);
+        }
+        if (!expired.isEmpty()) {
+            artifactStore.delete(expired.stream().map(StatementJob::getId).toList());
+            statementJobRepository.saveAll(expired);
+            log.info("Removed {} expired statement artifacts", expired.size());
+        }
+    }
+
+    // Older runs may have queued the same statement twice; keep one before indexing
+    @EventListener(ApplicationReadyEvent.class)
+    public void createLivePeriodIndex() {
+        try {
+            int failed = statementJobRepository.failDuplicateLiveJobs();
+            if (failed > 0) {
+                log.info("Marked {} duplicate statement jobs as failed", failed);
+            }
+        } catch (Exception e) {
+            log.warn("Could not remove duplicate statement jobs: {}", e.getMessage());
+        }
+        indexBuilder.createUniqueIndex(LIVE_PERIOD_INDEX, "ON statement_jobs " +
+                "(account_id, format, start_date, end_date) WHERE status IN " + LIVE_STATUSES);
+    }
+
+    @Scheduled(fixedDelayString = "${banking.statements.heartbeat-interval-ms:30000}")
+    public void renewLeases() {
+        statementJobRepository.renewLeases(nodeId, LocalDateTime.now().plus(lease));
+    }
+
+    // Jobs that were queued or running on a node that has since stopped are rendered again
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${banking.statements.requeue-interval-ms:60000}")
+    public void requeueInterruptedJobs() {
+        int reset = statementJobRepository.requeueExpired(LocalDateTime.now());
+        if (reset > 0) {
+            log.info("Re-queued {} interrupted statement jobs", reset);
+        }
+    }
+
+    /**
+     * Hands a pending job to the executor. Returns false when the executor is full, in
+     * which case the job goes back to PENDING for the next dispatch run.
+     */
+    private boolean dispatch(String jobId) {
+        if (statementJobRepository.transition(jobId, "PENDING", "QUEUED", nodeId,
+                LocalDateTime.now().plus(lease)) == 0) {
+            return true; // Already taken
+        }
+        try {
+            statementExecutor.execute(() -> render(jobId));
+            return true;
+        } catch (TaskRejectedException e) {
+            statementJobRepository.transition(jobId, "QUEUED", "PENDING", null, null);
+            return false;
+        }
+    }
+
+    private void render(String jobId) {
+        if (statementJobRepository.transition(jobId, "QUEUED", "RUNNING", nodeId,
+                LocalDateTime.now().plus(lease)) == 0) {
+            return;
+        }
+        StatementJob job = statementJobRepository.findById(jobId).orElse(null);
+        if (job == null) {
+            return;
+        }
+
+        Path temp = null;
+        try {
+            temp = Files.createTempFile("statement-" + job.getId(), "." + job.getFormat().toLowerCase());
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            StatementRequest request = new StatementRequest(job.getAccountId(), job.getStartDate(),
+                    job.getEndDate(), job.getFormat());
+
+            try (OutputStream out = new DigestOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temp)), digest)) {
+                if ("CSV".equals(job.getFormat())) {
+                    statementService.writeCsvStatement(request, out, false);
+                } else {
+                    Account account = accountRepository.findById(job.getAccountId())
+                            .orElseThrow(() -> new ResourceNotFoundException("Account not found"));
+                    statementService.writePdfStatement(request, account, out);
+                }
+            }
+            artifactStore.save(jobId, temp);
+
+            LocalDateTime now = LocalDateTime.now();
+            job.setStatus("COMPLETED");
+            job.setLeaseExpiresAt(null);
+            job.setFilePath(null);
+            job.setChecksum(HexFormat.of().formatHex(digest.digest()));
+            job.setSizeBytes(Files.size(temp));
+            job.setCompletedAt(now);
+            job.setExpiresAt(now.plus(Boolean.TRUE.equals(job.getPreRendered()) ? preRenderedTtl : artifactTtl));
+            job.setErrorMessage(null);
+            statementJobRepository.save(job);
+            log.debug("Statement job {} completed ({} bytes)", jobId, job.getSizeBytes());
+        } catch (Exception e) {
+            log.error("Statement job {} failed: {}", jobId, e.getMessage());
+            artifactStore.delete(List.of(jobId));
+            job.setStatus("FAILED");
+            job.setLeaseExpiresAt(null);
+            job.setCompletedAt(LocalDateTime.now());
+            job.setErrorMessage(truncate(e.getMessage()));
+            statementJobRepository.save(job);
+        } finally {
+            if (temp != null) {
+                deleteQuietly(temp.toString());
+            }
+        }
+    }
+
+    private StatementJob createJob(Long accountId, String username, LocalDateTime startDate,
+                                   LocalDateTime endDate, String format, boolean preRendered) {
+        StatementJob job = new StatementJob();
+        job.setId(UUID.randomUUID().toString());
+        job.setUsername(username);
+        job.setAccountId(accountId);
+        job.setStartDate(startDate);
+        job.setEndDate(endDate);
+        job.setFormat(format);
+        job.setStatus("PENDING");
+        job.setPreRendered(preRendered);
+        job.setCreatedAt(LocalDateTime.now());
+        return statementJobRepository.save(job);
+    }
+
+    private StatementJob findOwnedJob(String jobId, String username) {
+        return statementJobRepository.findByIdAndUsername(jobId, username)
+                .orElseThrow(() -> new ResourceNotFoundException("Statement job not found"));
+    }
+
+    private static String normalizeFormat(String format) {
+        if (format == null || format.isBlank()) {
+            return "PDF";
+        }
+        String normalized = format.trim().toUpperCase();
+        if (!normalized.equals("PDF") && !normalized.equals("CSV")) {
+            throw new IllegalArgumentException("Unsupported statement format: " + format);
+        }
+        return normalized;
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return "Statement generation failed";
+        }
+        return message.length() > 500 ? message.substring(0, 500) : message;
+    }
+
+    private static void deleteQuietly(String path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(Paths.get(path));
+        } catch (IOException e) {
+            log.warn("Could not delete statement file {}: {}", path, e.getMessage());
+        }
+    }
+}
@@ -5,9 +5,10 @@ import com.itextpdf.text.pdf.PdfPCell;
 import com.itextpdf.text.pdf.PdfPTable;
 import com.itextpdf.text.pdf.PdfWriter;
 import com.sanjay.bms.dto.StatementRequest;
+import com.sanjay.bms.dto.TransactionDto;
 import com.sanjay.bms.entity.Account;
-import com.sanjay.bms.entity.Transaction;
 import com.sanjay.bms.entity.User;
+import com.sanjay.bms.exception.ResourceNotFoundException;
 import com.sanjay.bms.repository.AccountRepository;
 import com.sanjay.bms.repository.TransactionRepository;
 import com.sanjay.bms.repository.UserRepository;
@@ -15,13 +16,21 @@ import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVPrinter;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
-
-import java.io.ByteArrayOutputStream;
-import java.io.StringWriter;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.math.BigDecimal;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
 
 @Slf4j
 @AllArgsConstructor
@@ -32,50 +41,69 @@ public class StatementService {
     private final TransactionRepository transactionRepository;
     private final UserRepository userRepository;
 
-    public byte[] generatePdfStatement(StatementRequest request, String username) {
-        try {
-            // Verify ownership
-            Account account = accountRepository.findById(request.getAccountId())
-                    .orElseThrow(() -> new RuntimeException("Account not found"));
+    private static final int PAGE_SIZE = 1000;
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm");
+
+    // Shared, never modified after creation
+    private static final Font HEADER_FONT = new Font(Font.FontFamily.HELVETICA, 18, Font.BOLD);
+    private static final Font NORMAL_FONT = new Font(Font.FontFamily.HELVETICA, 10);
+    private static final Font TABLE_HEADER_FONT = new Font(Font.FontFamily.HELVETICA, 10, Font.BOLD);
+    private static final Font CELL_FONT = new Font(Font.FontFamily.HELVETICA, 9);
+
+    /**
+     * Checks the request and that the user owns the account. Call before writing any
+     * output so errors can still be reported as a normal error response.
+     */
+    public Account getStatementAccount(StatementRequest request, String username) {
+        if (request.getAccountId() == null || request.getStartDate() == null || request.getEndDate() == null) {
+            throw new IllegalArgumentException("Account and statement period are required");
+        }
 
-            User user = userRepository.findByUsername(username)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
+        Account account = accountRepository.findById(request.getAccountId())
+                .orElseThrow(() -> new ResourceNotFoundException("Account not found"));
 
-            if (!account.getUser().getId().equals(user.getId())) {
-                throw new SecurityException("Access denied");
-            }
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
 
-            // Get transactions
-            List<Transaction> transactions = transactionRepository.findByAccountIdAndDateRange(
-                    request.getAccountId(), request.getStartDate(), request.getEndDate());
+        if (!account.getUser().getId().equals(user.getId())) {
+            throw new SecurityException("Access denied");
+        }
+        return account;
+    }
 
-            // Create PDF
+    /**
+     * Streams the PDF straight to the given output. Transactions are read in keyset pages
+     * and the table is rendered page by page, so memory use does not grow with the range.
+     */
+    public void writePdfStatement(StatementRequest request, Account account, OutputStream out) {
+        try {
             Document document = new Document(PageSize.A4);
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            PdfWriter.getInstance(document, baos);
+            PdfWriter writer = PdfWriter.getInstance(document, out);
 
             document.open();
 
             // Add header
-            Font headerFont = new Font(Font.FontFamily.HELVETICA, 18, Font.BOLD);
-            Paragraph header = new Paragraph("ACCOUNT STATEMENT", headerFont);
+            Paragraph header = new Paragraph("ACCOUNT STATEMENT", HEADER_FONT);
             header.setAlignment(Element.ALIGN_CENTER);
             document.add(header);
             document.add(Chunk.NEWLINE);
 
             // Account details
-            Font normalFont = new Font(Font.FontFamily.HELVETICA, 10);
-            document.add(new Paragraph("Account Holder: " + account.getAccountHolderName(), normalFont));
-            document.add(new Paragraph("Account Number: " + maskAccountNumber(account.getAccountNumber()), normalFont));
-            document.add(new Paragraph("Account Type: " + account.getAccountType(), normalFont));
+            document.add(new Paragraph("Account Holder: " + account.getAccountHolderName(), NORMAL_FONT));
+            document.add(new Paragraph("Account Number: " + maskAccountNumber(account.getAccountNumber()), NORMAL_FONT));
+            document.add(new Paragraph("Account Type: " + account.getAccountType(), NORMAL_FONT));
             document.add(new Paragraph("Statement Period: " +
-                    formatDate(request.getStartDate()) + " to " + formatDate(request.getEndDate()), normalFont));
+                    formatDate(request.getStartDate()) + " to " + formatDate(request.getEndDate()), NORMAL_FONT));
             document.add(Chunk.NEWLINE);
 
-            // Transaction table
+            // Transaction table, repeated header row on every page
             PdfPTable table = new PdfPTable(6);
             table.setWidthPercentage(100);
             table.setWidths(new int[]{2, 3, 2, 2, 2, 3});
+            table.setHeaderRows(1);
+            table.getDefaultCell().setPadding(3);
+            // Large table mode: each document.add renders the rows so far and releases them
+            table.setComplete(false);
 
             // Table headers
             addTableHeader(table, "Date");
@@ -85,39 +113,45 @@ public class StatementService {
             addTableHeader(table, "Balance");
             addTableHeader(table, "Reference");
 
-            // Add transactions
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm");
-            for (Transaction txn : transactions) {
-                addTableCell(table, txn.getTransactionDate().format(formatter));
-                addTableCell(table, txn.getDescription());
-                addTableCell(table, txn.getTransactionType());
-                addTableCell(table, "₹" + txn.getAmount().toString());
-                addTableCell(table, "₹" + txn.getBalanceAfter().toString());
-                addTableCell(table, txn.getReferenceNumber());
+            BigDecimal totalDebit = BigDecimal.ZERO;
+            BigDecimal totalCredit = BigDecimal.ZERO;
+
+            List<TransactionDto> page = nextPage(request, null);
+            while (!page.isEmpty()) {
+                for (TransactionDto txn : page) {
+                    addTableCell(table, txn.getTransactionDate().format(DATE_TIME_FORMATTER));
+                    addTableCell(table, txn.getDescription());
+                    addTableCell(table, txn.getTransactionType());
+                    addTableCell(table, "₹" + txn.getAmount().toString());
+                    addTableCell(table, "₹" + txn.getBalanceAfter().toString());
+                    addTableCell(table, txn.getReferenceNumber());
+
+                    if (isDebit(txn.getTransactionType())) {
+                        totalDebit = totalDebit.add(txn.getAmount());
+                    } else if (isCredit(txn.getTransactionType())) {
+                        totalCredit = totalCredit.add(txn.getAmount());
+                    }
+                }
+
+                document.add(table);
+                writer.flush();
+
+                if (page.size() < PAGE_SIZE) {
+                    break;
+                }
+                page = nextPage(request, page.get(page.size() - 1));
             }
 
+            table.setComplete(true);
             document.add(table);
             document.add(Chunk.NEWLINE);
 
             // Summary
-            BigDecimal totalDebit = transactions.stream()
-                    .filter(t -> t.getTransactionType().contains("WITHDRAW") ||
-                            t.getTransactionType().contains("TRANSFER_OUT"))
-                    .map(Transaction::getAmount)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-            BigDecimal totalCredit = transactions.stream()
-                    .filter(t -> t.getTransactionType().contains("DEPOSIT") ||
-                            t.getTransactionType().contains("TRANSFER_IN"))
-                    .map(Transaction::getAmount)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-            document.add(new Paragraph("Total Debits: ₹" + totalDebit, normalFont));
-            document.add(new Paragraph("Total Credits: ₹" + totalCredit, normalFont));
-            document.add(new Paragraph("Current Balance: ₹" + account.getBalance(), normalFont));
+            document.add(new Paragraph("Total Debits: ₹" + totalDebit, NORMAL_FONT));
+            document.add(new Paragraph("Total Credits: ₹" + totalCredit, NORMAL_FONT));
+            document.add(new Paragraph("Current Balance: ₹" + account.getBalance(), NORMAL_FONT));
 
             document.close();
-            return baos.toByteArray();
 
         } catch (Exception e) {
             log.error("Error generating PDF statement: {}", e.getMessage());
@@ -125,64 +159,76 @@ public class StatementService {
         }
     }
 
-    public String generateCsvStatement(StatementRequest request, String username) {
-        try {
-            // Verify ownership
-            Account account = accountRepository.findById(request.getAccountId())
-                    .orElseThrow(() -> new RuntimeException("Account not found"));
-
-            User user = userRepository.findByUsername(username)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-
-            if (!account.getUser().getId().equals(user.getId())) {
-                throw new SecurityException("Access denied");
-            }
-
-            // Get transactions
-            List<Transaction> transactions = transactionRepository.findByAccountIdAndDateRange(
-                    request.getAccountId(), request.getStartDate(), request.getEndDate());
-
-            // Create CSV
-            StringWriter sw = new StringWriter();
-            CSVPrinter csvPrinter = new CSVPrinter(sw, CSVFormat.DEFAULT
-                    .withHeader("Date", "Description", "Type", "Amount", "Balance", "Reference"));
-
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm");
-
-            for (Transaction txn : transactions) {
+    /**
+     * Streams the CSV row by row from a database cursor with a fixed fetch size, so
+     * memory stays flat however long the period is. Optionally gzip-compressed.
+     */
+    @Transactional(readOnly = true)
+    public void writeCsvStatement(StatementRequest request, OutputStream out, boolean gzip) throws IOException {
+        GZIPOutputStream gzipOut = gzip ? new GZIPOutputStream(out, 8192, true) : null;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(
+                gzipOut != null ? gzipOut : out, StandardCharsets.UTF_8));
+        CSVPrinter csvPrinter = new CSVPrinter(writer, CSVFormat.DEFAULT.builder()
+                .setHeader("Date", "Description", "Type", "Amount", "Balance", "Reference")
+                .build());
+
+        // Send the header right away so the download starts immediately
+        csvPrinter.flush();
+
+        try (Stream<TransactionDto> rows = transactionRepository.streamStatementRows(
+                request.getAccountId(), request.getStartDate(), request.getEndDate())) {
+            int count = 0;
+            for (TransactionDto txn : (Iterable<TransactionDto>) rows::iterator) {
                 csvPrinter.printRecord(
-                        txn.getTransactionDate().format(formatter),
+                        txn.getTransactionDate().format(DATE_TIME_FORMATTER),
                         txn.getDescription(),
                         txn.getTransactionType(),
                         txn.getAmount().toString(),
                         txn.getBalanceAfter().toString(),
                         txn.getReferenceNumber()
                 );
+                if (++count % PAGE_SIZE == 0) {
+                    csvPrinter.flush();
+                }
             }
+        }
 
-            csvPrinter.flush();
-            return sw.toString();
-
-        } catch (Exception e) {
-            log.error("Error generating CSV statement: {}", e.getMessage());
-            throw new RuntimeException("Failed to generate CSV statement", e);
+        csvPrinter.flush();
+        if (gzipOut != null) {
+            gzipOut.finish();
         }
     }
 
     private void addTableHeader(PdfPTable table, String text) {
-        Font font = new Font(Font.FontFamily.HELVETICA, 10, Font.BOLD);
-        PdfPCell cell = new PdfPCell(new Phrase(text, font));
+        PdfPCell cell = new PdfPCell(new Phrase(text, TABLE_HEADER_FONT));
         cell.setBackgroundColor(BaseColor.LIGHT_GRAY);
         cell.setHorizontalAlignment(Element.ALIGN_CENTER);
         cell.setPadding(5);
         table.addCell(cell);
     }
 
+    // Uses the table's default cell as the template instead of building a cell per value
     private void addTableCell(PdfPTable table, String text) {
-        Font font = new Font(Font.FontFamily.HELVETICA, 9);
-        PdfPCell cell = new PdfPCell(new Phrase(text, font));
-        cell.setPadding(3);
-        table.addCell(cell);
+        table.addCell(new Phrase(text != null ? text : "", CELL_FONT));
+    }
+
+    // Next keyset page after the given row, or the first page when it is null
+    private List<TransactionDto> nextPage(StatementRequest request, TransactionDto last) {
+        return transactionRepository.findStatementPage(
+                request.getAccountId(),
+                request.getStartDate(),
+                request.getEndDate(),
+                last != null ? last.getTransactionDate() : request.getStartDate(),
+                last != null ? last.getId() : 0L,
+                PageRequest.of(0, PAGE_SIZE));
+    }
+
+    private static boolean isDebit(String transactionType) {
+        return transactionType.contains("WITHDRAW") || transactionType.contains("TRANSFER_OUT");
+    }
+
+    private static boolean isCredit(String transactionType) {
+        return transactionType.contains("DEPOSIT") || transactionType.contains("TRANSFER_IN");
     }
 
     private String maskAccountNumber(String accountNumber) {
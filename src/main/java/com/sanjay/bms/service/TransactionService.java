@@ -6,6 +6,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface TransactionService {
     // Existing methods
@@ -14,7 +15,8 @@ public interface TransactionService {
     Long getTodayTransactionsCount();
     List<TransactionDto> getTransactionsByDateRange(Long accountId, LocalDateTime startDate, LocalDateTime endDate);
     TransactionDto transferFunds(TransferRequest transferRequest);
-    List<TransactionDto> getAllTransactions();
+    TransactionPageDto getTransactionsPage(String cursor, int size);
+    void streamAllTransactions(Consumer<TransactionDto> consumer);
     void recordTransaction(String deposit, Long accountId, BigDecimal amount, BigDecimal newBalance, String depositToAccount);
 
     // User-specific methods
@@ -28,8 +30,8 @@ public interface TransactionService {
     String initiateTransfer(TransferRequest request, String username);
 
     // Filter and search methods
-    List<TransactionDto> filterTransactions(TransactionFilterDto filter, String username);
-    List<TransactionDto> searchTransactions(String searchTerm, String username);
+    TransactionPageDto filterTransactions(TransactionFilterDto filter, String username);
+    TransactionSearchPageDto searchTransactions(String searchTerm, int page, int size, String username);
     TransactionDto getTransactionByReference(String reference, String username);
 
     // Statistics
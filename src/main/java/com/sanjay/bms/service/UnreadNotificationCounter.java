@@ -0,0 +1,224 @@
+package com.sanjay.bms.service;
+
+import com.sanjay.bms.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps each user's unread notification count so the badge never has to count rows.
+ *
+ * The count lives in users.unread_notification_count and is adjusted in the same
+ * transaction that creates or reads notifications. Recently used counts are also held
+ * in memory and adjusted once that transaction commits, so a badge lookup is a map read.
+ * Users whose column is still NULL (created before the counter existed) are counted
+ * once, under a row lock, the first time their count is needed.
+ *
+ * A count is only cached when no change for that user's stripe was in flight while it
+ * was read from the database; otherwise it could miss or double count that change.
+ *
+ * Cached counts only follow commits made on this node. Changes made on other nodes (e.g.
+ * a notification created by another node's OutboxRelay) drop the cached count through
+ * NotificationStreamBroadcaster. Each count is also dropped a fixed time after it was
+ * loaded, however often it is read, in case such a message was missed.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class UnreadNotificationCounter {
+
+    private static final int STRIPES = 64;
+
+    private static final String LOCK_SQL =
+            "SELECT unread_notification_count FROM users WHERE username = ? FOR UPDATE";
+    private static final String COUNT_SQL = "SELECT COUNT(*) FROM notifications n " +
+            "JOIN users u ON u.id = n.user_id WHERE u.username = ? AND n.is_read = false";
+    private static final String SEED_SQL = "UPDATE users SET unread_notification_count = ? WHERE username = ?";
+
+    private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${banking.notifications.unread-counter.max-entries:100000}")
+    private int maxEntries;
+
+    @Value("${banking.notifications.unread-counter.ttl:30s}")
+    private Duration ttl;
+
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final Stripe[] stripes = createStripes();
+
+    public long get(String username) {
+        Counter counter = counters.get(username);
+        if (counter != null) {
+            if (!counter.isExpired(ttl)) {
+                return Math.max(counter.value.sum(), 0);
+            }
+            counters.remove(username, counter);
+        }
+
+        Stripe stripe = stripe(username);
+        long generation;
+        boolean quiet;
+        synchronized (stripe) {
+            generation = stripe.generation;
+            quiet = stripe.pending == 0;
+        }
+        long value = load(username);
+        synchronized (stripe) {
+            if (quiet && stripe.generation == generation && counters.size() < maxEntries) {
+                counters.putIfAbsent(username, new Counter(value));
+            }
+        }
+        return Math.max(value, 0);
+    }
+
+    /**
+     * Adjusts the stored count inside the caller's transaction; the cached count follows
+     * once it commits.
+     */
+    public void adjust(String username, long delta) {
+        if (delta == 0) {
+            return;
+        }
+        Stripe stripe = stripe(username);
+        synchronized (stripe) {
+            stripe.pending++;
+            stripe.generation++;
+        }
+        try {
+            userRepository.adjustUnreadNotificationCount(username, delta);
+        } catch (RuntimeException e) {
+            finish(stripe, username, delta, false);
+            throw e;
+        }
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            finish(stripe, username, delta, true);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            // Ahead of after-commit event listeners, so they already see the new count
+            @Override
+            public int getOrder() {
+                return Ordered.HIGHEST_PRECEDENCE;
+            }
+
+            @Override
+            public void afterCommit() {
+                finish(stripe, username, delta, true);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    finish(stripe, username, delta, false);
+                }
+            }
+        });
+    }
+
+    // The next get() reloads from the database; a load already in flight is not cached
+    public void invalidate(String username) {
+        Stripe stripe = stripe(username);
+        synchronized (stripe) {
+            stripe.generation++;
+            counters.remove(username);
+        }
+    }
+
+    // Drops counts loaded longer ago than the TTL, read or not
+    @Scheduled(fixedDelayString = "${banking.notifications.unread-counter.evict-interval-ms:60000}")
+    public void evictExpired() {
+        int before = counters.size();
+        counters.values().removeIf(counter -> counter.isExpired(ttl));
+        int removed = before - counters.size();
+        if (removed > 0) {
+            log.debug("Evicted {} expired unread notification counters", removed);
+        }
+    }
+
+    private void finish(Stripe stripe, String username, long delta, boolean committed) {
+        synchronized (stripe) {
+            if (committed) {
+                Counter counter = counters.get(username);
+                if (counter != null) {
+                    counter.value.add(delta);
+                }
+            }
+            stripe.pending--;
+        }
+    }
+
+    private long load(String username) {
+        Long stored = userRepository.findUnreadNotificationCount(username);
+        return stored != null ? stored : seed(username);
+    }
+
+    // Counts the rows once; the row lock orders this against concurrent adjust() calls
+    private long seed(String username) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        // May be asked from an after-commit callback, where the old transaction cannot be reused
+        transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        Long seeded = transaction.execute(status -> {
+            List<Long> locked = jdbcTemplate.queryForList(LOCK_SQL, Long.class, username);
+            if (locked.isEmpty()) {
+                return 0L;
+            }
+            if (locked.get(0) != null) {
+                return locked.get(0);
+            }
+            Long count = jdbcTemplate.queryForObject(COUNT_SQL, Long.class, username);
+            long value = count != null ? count : 0L;
+            jdbcTemplate.update(SEED_SQL, value, username);
+            return value;
+        });
+        return seeded != null ? seeded : 0L;
+    }
+
+    private Stripe stripe(String username) {
+        return stripes[Math.floorMod(username.hashCode(), STRIPES)];
+    }
+
+    private static Stripe[] createStripes() {
+        Stripe[] created = new Stripe[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            created[i] = new Stripe();
+        }
+        return created;
+    }
+
+    // Changes in flight for the users hashed here; guarded by the stripe's monitor
+    private static final class Stripe {
+        private int pending;
+        private long generation;
+    }
+
+    private static final class Counter {
+        private final LongAdder value = new LongAdder();
+        private final long loadedAt = System.nanoTime();
+
+        private Counter(long initial) {
+            value.add(initial);
+        }
+
+        private boolean isExpired(Duration ttl) {
+            return System.nanoTime() - loadedAt > ttl.toNanos();
+        }
+    }
+}
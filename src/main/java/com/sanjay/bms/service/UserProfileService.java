@@ -14,6 +14,8 @@ public interface UserProfileService {
     DashboardDto getUserDashboard(String username);
     List<NotificationDto> getNotifications(String username);
     List<NotificationDto> getUnreadNotifications(String username);
+    NotificationPageDto getNotificationsPage(String username, String cursor, int size, boolean unreadOnly);
     void markNotificationAsRead(Long notificationId);
     void markAllNotificationsAsRead(String username);
+    void deleteNotification(Long notificationId, String username);
 }
\ No newline at end of file
@@ -5,9 +5,11 @@ import com.sanjay.bms.dto.AccountDirectoryDto;
 import com.sanjay.bms.entity.Account;
 import com.sanjay.bms.exception.ResourceNotFoundException;
 import com.sanjay.bms.repository.AccountRepository;
+import com.sanjay.bms.service.AccountDirectoryIndex;
 import com.sanjay.bms.service.AccountDirectoryService;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -18,26 +20,24 @@ import java.util.stream.Collectors;
 @Service
 public class AccountDirectoryServiceImpl implements AccountDirectoryService {
 
+    private static final int MAX_SEARCH_RESULTS = 50;
+
     private final AccountRepository accountRepository;
+    private final AccountDirectoryIndex accountDirectoryIndex;
 
     @Override
-    public List<AccountDirectoryDto> searchAccounts(String query) {
-        List<Account> accounts;
-
+    public List<AccountDirectoryDto> searchAccounts(String query, int limit) {
         if (query == null || query.trim().isEmpty()) {
-            accounts = accountRepository.findByAccountStatus("Active");
-        } else {
-            // Search by account number, holder name
-            accounts = accountRepository.findAll().stream()
-                    .filter(acc -> "Active".equals(acc.getAccountStatus()))
-                    .filter(acc ->
-                            acc.getAccountNumber().contains(query) ||
-                                    acc.getAccountHolderName().toLowerCase().contains(query.toLowerCase())
-                    )
-                    .collect(Collectors.toList());
+            return List.of();
         }
+        int max = Math.max(1, Math.min(limit, MAX_SEARCH_RESULTS));
+        String trimmed = query.trim();
 
-        return accounts.stream()
+        if (accountDirectoryIndex.isReady()) {
+            return accountDirectoryIndex.search(trimmed, max);
+        }
+        // Index still loading after startup
+        return accountRepository.searchActiveDirectory(trimmed, PageRequest.of(0, max)).stream()
                 .map(this::mapToDirectoryDto)
                 .collect(Collectors.toList());
     }
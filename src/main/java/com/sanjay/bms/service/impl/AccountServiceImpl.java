@@ -3,26 +3,30 @@ package com.sanjay.bms.service.impl;
 import com.sanjay.bms.dto.AccountDto;
 import com.sanjay.bms.entity.Account;
 import com.sanjay.bms.entity.User;
+import com.sanjay.bms.event.AccountBalanceChangedEvent;
+import com.sanjay.bms.event.AccountStatusChangedEvent;
 import com.sanjay.bms.exception.InsufficientBalanceException;
 import com.sanjay.bms.exception.ResourceNotFoundException;
 import com.sanjay.bms.mapper.AccountMapper;
 import com.sanjay.bms.repository.AccountRepository;
 import com.sanjay.bms.repository.UserRepository;
+import com.sanjay.bms.service.AccountNumberAllocator;
 import com.sanjay.bms.service.AccountService;
 import com.sanjay.bms.service.AuditService;
+import com.sanjay.bms.service.DailyLimitService;
+import com.sanjay.bms.service.DailySummaryService;
 import com.sanjay.bms.service.NotificationService;
 import com.sanjay.bms.service.TransactionService;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Random;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -35,6 +39,10 @@ public class AccountServiceImpl implements AccountService {
     private final TransactionService transactionService;
     private final NotificationService notificationService;
     private final AuditService auditService;
+    private final DailySummaryService dailySummaryService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AccountNumberAllocator accountNumberAllocator;
+    private final DailyLimitService dailyLimitService;
 
     // âœ… UPDATED: createAccount with username and request
     @Override
@@ -47,7 +55,7 @@ public class AccountServiceImpl implements AccountService {
                 .orElseThrow(() -> new ResourceNotFoundException("User not found: " + username));
 
         Account account = new Account();
-        account.setAccountNumber(generateAccountNumber());
+        account.setAccountNumber(accountNumberAllocator.nextAccountNumber());
         account.setAccountHolderName(accountDto.getAccountHolderName() != null ?
                 accountDto.getAccountHolderName() : user.getFullName());
         account.setAccountType(accountDto.getAccountType());
@@ -64,6 +72,8 @@ public class AccountServiceImpl implements AccountService {
                 accountDto.getMinimumBalance() : BigDecimal.ZERO);
 
         Account savedAccount = accountRepository.save(account);
+        dailySummaryService.recordNewAccount(savedAccount.getBalance());
+        eventPublisher.publishEvent(new AccountStatusChangedEvent(savedAccount.getId(), username, "Active"));
 
         // Audit log
         auditService.logAction(username, "ACCOUNT_CREATED",
@@ -151,6 +161,8 @@ public class AccountServiceImpl implements AccountService {
         }
 
         Account updatedAccount = accountRepository.save(account);
+        eventPublisher.publishEvent(new AccountStatusChangedEvent(updatedAccount.getId(),
+                updatedAccount.getUser().getUsername(), updatedAccount.getAccountStatus()));
         log.info("Account updated: {}", updatedAccount.getAccountNumber());
 
         return AccountMapper.mapToAccountDto(updatedAccount);
@@ -168,6 +180,7 @@ public class AccountServiceImpl implements AccountService {
         }
 
         accountRepository.deleteById(id);
+        eventPublisher.publishEvent(new AccountStatusChangedEvent(id, account.getUser().getUsername(), "Deleted"));
         log.info("Account deleted: {}", account.getAccountNumber());
     }
 
@@ -188,7 +201,6 @@ public class AccountServiceImpl implements AccountService {
     // âœ… UPDATED: deposit with username and request
     @Override
     @Transactional
-    @CacheEvict(value = "userDashboard", key = "#username")
     public AccountDto deposit(Long id, BigDecimal amount, String username, HttpServletRequest request) {
         log.info("Processing deposit for account ID: {}, amount: {}, user: {}", id, amount, username);
 
@@ -196,47 +208,35 @@ public class AccountServiceImpl implements AccountService {
             throw new IllegalArgumentException("Deposit amount must be greater than zero");
         }
 
-        // Find user
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found: " + username));
-
-        Account account = accountRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Account not found with id: " + id));
-
-        // Verify ownership (unless admin)
-        if (!account.getUserId().equals(user.getId()) && !"ADMIN".equals(user.getRole())) {
-            throw new SecurityException("Access denied to this account");
-        }
-
-        if (!"Active".equals(account.getAccountStatus())) {
-            throw new IllegalArgumentException("Account is not active");
-        }
+        // Single conditional UPDATE; ownership, status and balance are checked in the database
+        LocalDateTime now = LocalDateTime.now();
+        AccountRepository.BalanceUpdate update = accountRepository
+                .applyBalanceDelta(id, amount, username, now, now.toLocalDate().atStartOfDay())
+                .orElseThrow(() -> rejectBalanceUpdate(id, amount, username, false));
 
-        BigDecimal newBalance = account.getBalance().add(amount);
-        account.setBalance(newBalance);
-        account.setLastTransactionDate(LocalDateTime.now());
-
-        Account updatedAccount = accountRepository.save(account);
+        BigDecimal newBalance = update.getBalance();
 
         // Record transaction
         transactionService.recordTransaction("DEPOSIT", id, amount, newBalance,
-                "Deposit to account " + account.getAccountNumber());
+                "Deposit to account " + update.getAccountNumber());
+        dailySummaryService.recordTransaction("DEPOSIT", amount, update.getFirstToday());
+        eventPublisher.publishEvent(new AccountBalanceChangedEvent(List.of(id)));
 
         // Audit log
         auditService.logTransaction(username, "DEPOSIT", id, amount.toString(), request);
 
         // Send notification
-        notificationService.notifyDeposit(account.getUser(), account.getAccountNumber(), amount);
+        notificationService.notifyDeposit(update.getOwnerUsername(), update.getOwnerEmail(),
+                update.getAccountNumber(), amount);
 
         log.info("Deposit successful. New balance: {}", newBalance);
 
-        return AccountMapper.mapToAccountDto(updatedAccount);
+        return AccountMapper.mapToAccountDto(update);
     }
 
     // âœ… UPDATED: withdraw with username and request
     @Override
     @Transactional
-    @CacheEvict(value = "userDashboard", key = "#username")
     public AccountDto withdraw(Long id, BigDecimal amount, String username, HttpServletRequest request) {
         log.info("Processing withdrawal for account ID: {}, amount: {}, user: {}", id, amount, username);
 
@@ -244,59 +244,33 @@ public class AccountServiceImpl implements AccountService {
             throw new IllegalArgumentException("Withdrawal amount must be greater than zero");
         }
 
-        // Find user
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found: " + username));
+        // Single conditional UPDATE; ownership, status, limit and minimum balance are checked in the database
+        LocalDateTime now = LocalDateTime.now();
+        AccountRepository.BalanceUpdate update = accountRepository
+                .applyBalanceDelta(id, amount.negate(), username, now, now.toLocalDate().atStartOfDay())
+                .orElseThrow(() -> rejectBalanceUpdate(id, amount, username, true));
 
-        Account account = accountRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Account not found with id: " + id));
+        BigDecimal newBalance = update.getBalance();
 
-        // Verify ownership (unless admin)
-        if (!account.getUserId().equals(user.getId()) && !"ADMIN".equals(user.getRole())) {
-            throw new SecurityException("Access denied to this account");
-        }
-
-        if (!"Active".equals(account.getAccountStatus())) {
-            throw new IllegalArgumentException("Account is not active");
-        }
-
-        // Check balance
-        if (account.getBalance().compareTo(amount) < 0) {
-            throw new InsufficientBalanceException("Insufficient balance. Available: " + account.getBalance());
-        }
-
-        // Check minimum balance
-        BigDecimal balanceAfterWithdrawal = account.getBalance().subtract(amount);
-        if (balanceAfterWithdrawal.compareTo(account.getMinimumBalance()) < 0) {
-            throw new IllegalArgumentException("Cannot withdraw. Minimum balance requirement: " +
-                    account.getMinimumBalance());
-        }
-
-        // Check transaction limit
-        if (amount.compareTo(account.getPerTransactionLimit()) > 0) {
-            throw new IllegalArgumentException("Amount exceeds per-transaction limit: " +
-                    account.getPerTransactionLimit());
-        }
-
-        BigDecimal newBalance = account.getBalance().subtract(amount);
-        account.setBalance(newBalance);
-        account.setLastTransactionDate(LocalDateTime.now());
-
-        Account updatedAccount = accountRepository.save(account);
+        // Throwing here rolls the debit above back with the transaction
+        dailyLimitService.reserve(id, amount, update.getDailyTransactionLimit());
 
         // Record transaction
         transactionService.recordTransaction("WITHDRAW", id, amount, newBalance,
-                "Withdrawal from account " + account.getAccountNumber());
+                "Withdrawal from account " + update.getAccountNumber());
+        dailySummaryService.recordTransaction("WITHDRAW", amount, update.getFirstToday());
+        eventPublisher.publishEvent(new AccountBalanceChangedEvent(List.of(id)));
 
         // Audit log
         auditService.logTransaction(username, "WITHDRAW", id, amount.toString(), request);
 
         // Send notification
-        notificationService.notifyWithdrawal(account.getUser(), account.getAccountNumber(), amount);
+        notificationService.notifyWithdrawal(update.getOwnerUsername(), update.getOwnerEmail(),
+                update.getAccountNumber(), amount);
 
         log.info("Withdrawal successful. New balance: {}", newBalance);
 
-        return AccountMapper.mapToAccountDto(updatedAccount);
+        return AccountMapper.mapToAccountDto(update);
     }
 
     @Override
@@ -327,6 +301,8 @@ public class AccountServiceImpl implements AccountService {
         account.setFrozenReason(reason);
         account.setFrozenAt(LocalDateTime.now());
         accountRepository.save(account);
+        eventPublisher.publishEvent(new AccountStatusChangedEvent(accountId,
+                account.getUser().getUsername(), account.getAccountStatus()));
 
         // Audit log
         auditService.logAccountAction(performedBy, "ACCOUNT_FROZEN", accountId,
@@ -354,6 +330,8 @@ public class AccountServiceImpl implements AccountService {
         account.setFrozenReason(null);
         account.setFrozenAt(null);
         accountRepository.save(account);
+        eventPublisher.publishEvent(new AccountStatusChangedEvent(accountId,
+                account.getUser().getUsername(), account.getAccountStatus()));
 
         // Audit log
         auditService.logAccountAction(performedBy, "ACCOUNT_UNFROZEN", accountId,
@@ -389,6 +367,8 @@ public class AccountServiceImpl implements AccountService {
         account.setClosureReason(reason);
         account.setClosedAt(LocalDateTime.now());
         accountRepository.save(account);
+        eventPublisher.publishEvent(new AccountStatusChangedEvent(accountId,
+                account.getUser().getUsername(), account.getAccountStatus()));
 
         // Audit log
         auditService.logAccountAction(performedBy, "ACCOUNT_CLOSED", accountId,
@@ -402,22 +382,48 @@ public class AccountServiceImpl implements AccountService {
         log.info("Account closed successfully: {}", account.getAccountNumber());
     }
 
-    private String generateAccountNumber() {
-        // Generate 12-digit account number
-        Random random = new Random();
-        StringBuilder accountNumber = new StringBuilder("AC");
-        for (int i = 0; i < 10; i++) {
-            accountNumber.append(random.nextInt(10));
+    // Slow path: work out why the conditional balance update matched no row
+    private RuntimeException rejectBalanceUpdate(Long id, BigDecimal amount, String username, boolean withdrawal) {
+        User user = userRepository.findByUsername(username).orElse(null);
+        if (user == null) {
+            return new ResourceNotFoundException("User not found: " + username);
         }
 
-        // Ensure uniqueness
-        while (accountRepository.findByAccountNumber(accountNumber.toString()).isPresent()) {
-            accountNumber = new StringBuilder("AC");
-            for (int i = 0; i < 10; i++) {
-                accountNumber.append(random.nextInt(10));
+        Account account = accountRepository.findById(id).orElse(null);
+        if (account == null) {
+            return new ResourceNotFoundException("Account not found with id: " + id);
+        }
+
+        // Verify ownership (unless admin)
+        if (!account.getUserId().equals(user.getId()) && !"ADMIN".equals(user.getRole())) {
+            return new SecurityException("Access denied to this account");
+        }
+
+        if (!"Active".equals(account.getAccountStatus())) {
+            return new IllegalArgumentException("Account is not active");
+        }
+
+        if (withdrawal) {
+            // Check balance
+            if (account.getBalance().compareTo(amount) < 0) {
+                return new InsufficientBalanceException("Insufficient balance. Available: " + account.getBalance());
+            }
+
+            // Check minimum balance
+            BigDecimal minimumBalance = account.getMinimumBalance() != null ?
+                    account.getMinimumBalance() : BigDecimal.ZERO;
+            if (account.getBalance().subtract(amount).compareTo(minimumBalance) < 0) {
+                return new IllegalArgumentException("Cannot withdraw. Minimum balance requirement: " +
+                        minimumBalance);
+            }
+
+            // Check transaction limit
+            if (amount.compareTo(account.getPerTransactionLimit()) > 0) {
+                return new IllegalArgumentException("Amount exceeds per-transaction limit: " +
+                        account.getPerTransactionLimit());
             }
         }
 
-        return accountNumber.toString();
+        return new IllegalArgumentException("Account was updated concurrently. Please try again.");
     }
 }
@@ -2,6 +2,7 @@ package com.sanjay.bms.service.impl;
 
 import com.sanjay.bms.dto.*;
 import com.sanjay.bms.entity.*;
+import com.sanjay.bms.event.UserStatusChangedEvent;
 import com.sanjay.bms.exception.ResourceNotFoundException;
 import com.sanjay.bms.mapper.*;
 import com.sanjay.bms.repository.*;
@@ -9,14 +10,20 @@ import com.sanjay.bms.service.*;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -24,6 +31,8 @@ import java.util.stream.Collectors;
 @Service
 public class AdminServiceImpl implements AdminService {
 
+    private static final BigDecimal HIGH_VALUE_THRESHOLD = new BigDecimal("50000");
+
     private final UserRepository userRepository;
     private final AccountRepository accountRepository;
     private final TransactionRepository transactionRepository;
@@ -31,57 +40,76 @@ public class AdminServiceImpl implements AdminService {
     private final NotificationService notificationService;
     private final AuditService auditService;
     private final AccountService accountService;
+    private final TransactionService transactionService;
+    private final Executor dashboardQueryExecutor;
+    private final DailySummaryService dailySummaryService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public AdminDashboardDto getDashboard() {
+        LocalDateTime startOfDay = LocalDateTime.now().withHour(0).withMinute(0).withSecond(0);
+
+        // Every figure is a database-side aggregate or a LIMIT-ed query, run in parallel
+        CompletableFuture<Long> totalUsers = CompletableFuture.supplyAsync(
+                userRepository::count, dashboardQueryExecutor);
+        CompletableFuture<List<Object[]>> statusCounts = CompletableFuture.supplyAsync(
+                accountRepository::countGroupedByStatus, dashboardQueryExecutor);
+        CompletableFuture<BigDecimal> totalBalance = CompletableFuture.supplyAsync(
+                accountRepository::getTotalBalance, dashboardQueryExecutor);
+        CompletableFuture<List<Object[]>> todayTotals = CompletableFuture.supplyAsync(
+                () -> transactionRepository.getCountAndVolumeSince(startOfDay), dashboardQueryExecutor);
+        CompletableFuture<Long> criticalCount = CompletableFuture.supplyAsync(
+                () -> auditLogRepository.countBySeverity("CRITICAL"), dashboardQueryExecutor);
+        CompletableFuture<List<Transaction>> highValue = CompletableFuture.supplyAsync(
+                () -> transactionRepository.findHighValueTransactions(
+                        HIGH_VALUE_THRESHOLD, PageRequest.of(0, 10)), dashboardQueryExecutor);
+        CompletableFuture<List<AuditLog>> criticalLogs = CompletableFuture.supplyAsync(
+                () -> auditLogRepository.findTop10BySeverityOrderByTimestampDesc("CRITICAL"),
+                dashboardQueryExecutor);
+
         AdminDashboardDto dashboard = new AdminDashboardDto();
 
         // User statistics
-        dashboard.setTotalUsers(userRepository.count());
+        dashboard.setTotalUsers(totalUsers.join());
 
         // Account statistics
-        dashboard.setTotalAccounts(accountRepository.count());
-        dashboard.setActiveAccounts(accountRepository.countByAccountStatus("Active"));
-        dashboard.setFrozenAccounts(accountRepository.countByAccountStatus("Frozen"));
+        long totalAccounts = 0;
+        long activeAccounts = 0;
+        long frozenAccounts = 0;
+        for (Object[] row : statusCounts.join()) {
+            long count = ((Number) row[1]).longValue();
+            totalAccounts += count;
+            if ("Active".equals(row[0])) {
+                activeAccounts = count;
+            } else if ("Frozen".equals(row[0])) {
+                frozenAccounts = count;
+            }
+        }
+        dashboard.setTotalAccounts(totalAccounts);
+        dashboard.setActiveAccounts(activeAccounts);
+        dashboard.setFrozenAccounts(frozenAccounts);
 
         // Total system balance
-        BigDecimal totalBalance = accountRepository.findAll().stream()
-                .map(Account::getBalance)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        dashboard.setTotalSystemBalance(totalBalance);
+        dashboard.setTotalSystemBalance(totalBalance.join());
 
-        // Today's transactions
-        LocalDateTime startOfDay = LocalDateTime.now().withHour(0).withMinute(0).withSecond(0);
-        dashboard.setTodayTransactions(transactionRepository.countTransactionsSince(startOfDay));
-
-        // Today's transaction volume
-        BigDecimal todayVolume = transactionRepository.findAll().stream()
-                .filter(t -> t.getTransactionDate().isAfter(startOfDay))
-                .map(Transaction::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        dashboard.setTodayTransactionVolume(todayVolume);
+        // Today's transactions and volume
+        Object[] today = todayTotals.join().get(0);
+        dashboard.setTodayTransactions(((Number) today[0]).longValue());
+        dashboard.setTodayTransactionVolume((BigDecimal) today[1]);
 
         // Placeholder for pending approvals and alerts
         dashboard.setPendingApprovals(0L);
-        dashboard.setCriticalAlerts(auditLogRepository.findBySeverityOrderByTimestampDesc("CRITICAL").size() > 0 ?
-                (long) auditLogRepository.findBySeverityOrderByTimestampDesc("CRITICAL").size() : 0L);
-
-        // Recent high-value transactions (>50000)
-        List<TransactionDto> highValueTxns = transactionRepository.findAll().stream()
-                .filter(t -> t.getAmount().compareTo(new BigDecimal("50000")) > 0)
-                .sorted((t1, t2) -> t2.getTransactionDate().compareTo(t1.getTransactionDate()))
-                .limit(10)
+        dashboard.setCriticalAlerts(criticalCount.join());
+
+        // Recent high-value transactions
+        dashboard.setRecentHighValueTransactions(highValue.join().stream()
                 .map(TransactionMapper::mapToTransactionDto)
-                .collect(Collectors.toList());
-        dashboard.setRecentHighValueTransactions(highValueTxns);
+                .collect(Collectors.toList()));
 
         // Recent critical audit logs
-        List<AuditLogDto> criticalLogs = auditLogRepository.findBySeverityOrderByTimestampDesc("CRITICAL")
-                .stream()
-                .limit(10)
+        dashboard.setRecentCriticalLogs(criticalLogs.join().stream()
                 .map(AuditLogMapper::mapToAuditLogDto)
-                .collect(Collectors.toList());
-        dashboard.setRecentCriticalLogs(criticalLogs);
+                .collect(Collectors.toList()));
 
         return dashboard;
     }
@@ -108,6 +136,7 @@ public class AdminServiceImpl implements AdminService {
 
         user.setEnabled(!user.getEnabled());
         userRepository.save(user);
+        eventPublisher.publishEvent(new UserStatusChangedEvent(user.getUsername()));
 
         String action = user.getEnabled() ? "USER_ENABLED" : "USER_DISABLED";
         auditService.logAction("admin", action,
@@ -125,6 +154,7 @@ public class AdminServiceImpl implements AdminService {
         user.setAccountLocked(true);
         user.setAccountLockedUntil(LocalDateTime.now().plusDays(30)); // Lock for 30 days
         userRepository.save(user);
+        eventPublisher.publishEvent(new UserStatusChangedEvent(user.getUsername()));
 
         notificationService.createNotification(user, "Account Locked",
                 "Your account has been locked. Reason: " + reason, "SECURITY");
@@ -145,6 +175,7 @@ public class AdminServiceImpl implements AdminService {
         user.setAccountLockedUntil(null);
         user.setFailedLoginAttempts(0);
         userRepository.save(user);
+        eventPublisher.publishEvent(new UserStatusChangedEvent(user.getUsername()));
 
         notificationService.createNotification(user, "Account Unlocked",
                 "Your account has been unlocked.", "SECURITY");
@@ -215,78 +246,30 @@ public class AdminServiceImpl implements AdminService {
 
     @Override
     public List<TransactionDto> getHighValueTransactions(int limit) {
-        return transactionRepository.findAll().stream()
-                .filter(t -> t.getAmount().compareTo(new BigDecimal("50000")) > 0)
-                .sorted((t1, t2) -> t2.getTransactionDate().compareTo(t1.getTransactionDate()))
-                .limit(limit)
+        return transactionRepository.findHighValueTransactions(HIGH_VALUE_THRESHOLD, PageRequest.of(0, limit))
+                .stream()
                 .map(TransactionMapper::mapToTransactionDto)
                 .collect(Collectors.toList());
     }
 
     @Override
-    public DailySummaryDto getDailySummary() {
-        LocalDateTime startOfDay = LocalDateTime.now().withHour(0).withMinute(0).withSecond(0);
-        List<Transaction> todayTxns = transactionRepository.findAll().stream()
-                .filter(t -> t.getTransactionDate().isAfter(startOfDay))
-                .collect(Collectors.toList());
+    public DailySummaryDto getDailySummary(LocalDate date) {
+        DailySummary daily = dailySummaryService.getSummary(date != null ? date : LocalDate.now());
 
         DailySummaryDto summary = new DailySummaryDto();
-        summary.setDate(LocalDateTime.now());
-        summary.setTotalTransactions((long) todayTxns.size());
-
-        BigDecimal totalAmount = todayTxns.stream()
-                .map(Transaction::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        summary.setTotalTransactionAmount(totalAmount);
-
-        // Deposits
-        List<Transaction> deposits = todayTxns.stream()
-                .filter(t -> "DEPOSIT".equals(t.getTransactionType()))
-                .collect(Collectors.toList());
-        summary.setDepositsCount((long) deposits.size());
-        summary.setDepositsAmount(deposits.stream()
-                .map(Transaction::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add));
-
-        // Withdrawals
-        List<Transaction> withdrawals = todayTxns.stream()
-                .filter(t -> "WITHDRAW".equals(t.getTransactionType()))
-                .collect(Collectors.toList());
-        summary.setWithdrawalsCount((long) withdrawals.size());
-        summary.setWithdrawalsAmount(withdrawals.stream()
-                .map(Transaction::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add));
-
-        // Transfers
-        List<Transaction> transfers = todayTxns.stream()
-                .filter(t -> t.getTransactionType().contains("TRANSFER"))
-                .collect(Collectors.toList());
-        summary.setTransfersCount((long) transfers.size() / 2); // Divide by 2 as each transfer has 2 records
-        summary.setTransfersAmount(transfers.stream()
-                .filter(t -> "TRANSFER_OUT".equals(t.getTransactionType()))
-                .map(Transaction::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add));
-
-        // New accounts and users today
-        summary.setNewAccountsToday(accountRepository.findAll().stream()
-                .filter(a -> a.getCreatedAt().isAfter(startOfDay))
-                .count());
-        summary.setNewUsersToday(userRepository.findAll().stream()
-                .filter(u -> u.getCreatedAt().isAfter(startOfDay))
-                .count());
-
-        // Active users (users who made transactions today)
-        summary.setActiveUsers((long) todayTxns.stream()
-                .map(Transaction::getAccountId)
-                .distinct()
-                .count());
-
-        // System balance
-        BigDecimal systemBalance = accountRepository.findAll().stream()
-                .map(Account::getBalance)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        summary.setSystemBalance(systemBalance);
-
+        summary.setDate(date != null ? date.atStartOfDay() : LocalDateTime.now());
+        summary.setTotalTransactions(daily.getTotalTransactions());
+        summary.setTotalTransactionAmount(daily.getTotalTransactionAmount());
+        summary.setDepositsCount(daily.getDepositsCount());
+        summary.setDepositsAmount(daily.getDepositsAmount());
+        summary.setWithdrawalsCount(daily.getWithdrawalsCount());
+        summary.setWithdrawalsAmount(daily.getWithdrawalsAmount());
+        summary.setTransfersCount(daily.getTransfersCount());
+        summary.setTransfersAmount(daily.getTransfersAmount());
+        summary.setNewAccountsToday(daily.getNewAccounts());
+        summary.setNewUsersToday(daily.getNewUsers());
+        summary.setActiveUsers(daily.getActiveAccounts());
+        summary.setSystemBalance(dailySummaryService.getSystemBalance(daily));
         return summary;
     }
 
@@ -364,10 +347,13 @@ public class AdminServiceImpl implements AdminService {
     }
 
     @Override
-    public List<TransactionDto> getAllTransactions() {
-        return transactionRepository.findAll().stream()
-                .map(TransactionMapper::mapToTransactionDto)
-                .collect(Collectors.toList());
+    public TransactionPageDto getTransactions(String cursor, int size) {
+        return transactionService.getTransactionsPage(cursor, size);
+    }
+
+    @Override
+    public void streamTransactions(Consumer<TransactionDto> consumer) {
+        transactionService.streamAllTransactions(consumer);
     }
 
     @Override
@@ -442,6 +428,7 @@ public class AdminServiceImpl implements AdminService {
         if (!user.getEnabled()) {
             user.setEnabled(true);
             userRepository.save(user);
+            eventPublisher.publishEvent(new UserStatusChangedEvent(user.getUsername()));
             auditService.logAction("admin", "USER_ENABLED",
                     "User " + user.getUsername() + " enabled", request, "INFO");
             log.info("User {} enabled", user.getUsername());
@@ -457,6 +444,7 @@ public class AdminServiceImpl implements AdminService {
         if (user.getEnabled()) {
             user.setEnabled(false);
             userRepository.save(user);
+            eventPublisher.publishEvent(new UserStatusChangedEvent(user.getUsername()));
             auditService.logAction("admin", "USER_DISABLED",
                     "User " + user.getUsername() + " disabled", request, "INFO");
             log.info("User {} disabled", user.getUsername());
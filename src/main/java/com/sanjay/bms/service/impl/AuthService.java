@@ -2,10 +2,13 @@ package com.sanjay.bms.service.impl;
 
 import com.sanjay.bms.dto.*;
 import com.sanjay.bms.entity.User;
+import com.sanjay.bms.event.UserStatusChangedEvent;
 import com.sanjay.bms.repository.UserRepository;
 import com.sanjay.bms.security.JwtUtil;
+import com.sanjay.bms.service.DailySummaryService;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -20,6 +23,8 @@ public class AuthService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtUtil jwtUtil;
+    private final DailySummaryService dailySummaryService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public AuthResponse register(RegisterRequest request) {
@@ -41,9 +46,10 @@ public class AuthService {
         user.setEnabled(true);
 
         User savedUser = userRepository.save(user);
+        dailySummaryService.recordNewUser();
         log.info("User registered successfully: {}", savedUser.getUsername());
 
-        String token = jwtUtil.generateToken(savedUser.getUsername());
+        String token = jwtUtil.generateToken(savedUser.getUsername(), savedUser.getRole());
         UserDto userDto = mapToUserDto(savedUser);
 
         return new AuthResponse(token, userDto);
@@ -91,6 +97,7 @@ public class AuthService {
             if (user.getFailedLoginAttempts() >= 5) {
                 user.setAccountLocked(true);
                 user.setAccountLockedUntil(LocalDateTime.now().plusMinutes(30));
+                eventPublisher.publishEvent(new UserStatusChangedEvent(user.getUsername()));
                 log.warn("Account locked due to multiple failed login attempts: {}", user.getUsername());
             }
 
@@ -105,7 +112,7 @@ public class AuthService {
 
         log.info("Login successful for user: {} with role: {}", user.getUsername(), user.getRole());
 
-        String token = jwtUtil.generateToken(user.getUsername());
+        String token = jwtUtil.generateToken(user.getUsername(), user.getRole());
         UserDto userDto = mapToUserDto(user);
 
         return new AuthResponse(token, userDto);
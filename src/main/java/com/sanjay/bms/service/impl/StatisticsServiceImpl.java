@@ -2,87 +2,83 @@ package com.sanjay.bms.service.impl;
 
 import com.sanjay.bms.dto.AccountStatistics;
 import com.sanjay.bms.dto.InterestCalculation;
-import com.sanjay.bms.entity.Account;
 import com.sanjay.bms.repository.AccountRepository;
 import com.sanjay.bms.service.StatisticsService;
 import lombok.AllArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 @AllArgsConstructor
 @Service
 public class StatisticsServiceImpl implements StatisticsService {
 
+    private static final String STATISTICS_CACHE = "accountStatistics";
+
     private final AccountRepository accountRepository;
+    private final CacheManager cacheManager;
 
+    // Served from the cache; refreshAccountStatistics keeps it warm so readers never wait on the query
     @Override
+    @Cacheable(value = STATISTICS_CACHE, key = "'all'")
     public AccountStatistics getAccountStatistics() {
-        List<Account> accounts = accountRepository.findAll();
+        return computeAccountStatistics();
+    }
 
-        AccountStatistics stats = new AccountStatistics();
-        stats.setTotalAccounts((long) accounts.size());
-
-        if (accounts.isEmpty()) {
-            stats.setTotalBalance(BigDecimal.ZERO);
-            stats.setAverageBalance(BigDecimal.ZERO);
-            stats.setMaxBalance(BigDecimal.ZERO);
-            stats.setMinBalance(BigDecimal.ZERO);
-            stats.setActiveAccounts(0L);
-            stats.setInactiveAccounts(0L);
-            stats.setFrozenAccounts(0L);
-            stats.setAccountTypeDistribution(new HashMap<>());
-            stats.setBalanceByType(new HashMap<>());
-            return stats;
+    @Scheduled(fixedDelayString = "${banking.statistics.refresh-interval-ms:60000}")
+    public void refreshAccountStatistics() {
+        Cache cache = cacheManager.getCache(STATISTICS_CACHE);
+        if (cache != null) {
+            cache.put("all", computeAccountStatistics());
         }
+    }
 
-        // Total and average balance
-        BigDecimal totalBalance = accounts.stream()
-                .map(Account::getBalance)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    // One grouped aggregate over accounts; only the (type, status) groups come back
+    private AccountStatistics computeAccountStatistics() {
+        long totalAccounts = 0;
+        BigDecimal totalBalance = BigDecimal.ZERO;
+        BigDecimal maxBalance = null;
+        BigDecimal minBalance = null;
+        Map<String, Long> countByStatus = new HashMap<>();
+        Map<String, Long> typeDistribution = new HashMap<>();
+        Map<String, BigDecimal> balanceByType = new HashMap<>();
+
+        for (Object[] row : accountRepository.aggregateByTypeAndStatus()) {
+            String type = (String) row[0];
+            String status = (String) row[1];
+            long count = ((Number) row[2]).longValue();
+            BigDecimal sum = (BigDecimal) row[3];
+            BigDecimal min = (BigDecimal) row[4];
+            BigDecimal max = (BigDecimal) row[5];
+
+            totalAccounts += count;
+            totalBalance = totalBalance.add(sum);
+            minBalance = minBalance == null || min.compareTo(minBalance) < 0 ? min : minBalance;
+            maxBalance = maxBalance == null || max.compareTo(maxBalance) > 0 ? max : maxBalance;
+            countByStatus.merge(status, count, Long::sum);
+            typeDistribution.merge(type, count, Long::sum);
+            balanceByType.merge(type, sum, BigDecimal::add);
+        }
+
+        AccountStatistics stats = new AccountStatistics();
+        stats.setTotalAccounts(totalAccounts);
         stats.setTotalBalance(totalBalance);
-        stats.setAverageBalance(totalBalance.divide(
-                BigDecimal.valueOf(accounts.size()), 2, RoundingMode.HALF_UP));
-
-        // Max and min balance
-        stats.setMaxBalance(accounts.stream()
-                .map(Account::getBalance)
-                .max(BigDecimal::compareTo)
-                .orElse(BigDecimal.ZERO));
-        stats.setMinBalance(accounts.stream()
-                .map(Account::getBalance)
-                .min(BigDecimal::compareTo)
-                .orElse(BigDecimal.ZERO));
-
-        // Status counts
-        stats.setActiveAccounts(accounts.stream()
-                .filter(a -> "Active".equals(a.getAccountStatus()))
-                .count());
-        stats.setInactiveAccounts(accounts.stream()
-                .filter(a -> "Inactive".equals(a.getAccountStatus()))
-                .count());
-        stats.setFrozenAccounts(accounts.stream()
-                .filter(a -> "Frozen".equals(a.getAccountStatus()))
-                .count());
-
-        // Account type distribution
-        Map<String, Long> typeDistribution = accounts.stream()
-                .collect(Collectors.groupingBy(Account::getAccountType, Collectors.counting()));
+        stats.setAverageBalance(totalAccounts == 0 ? BigDecimal.ZERO
+                : totalBalance.divide(BigDecimal.valueOf(totalAccounts), 2, RoundingMode.HALF_UP));
+        stats.setMaxBalance(maxBalance != null ? maxBalance : BigDecimal.ZERO);
+        stats.setMinBalance(minBalance != null ? minBalance : BigDecimal.ZERO);
+        stats.setActiveAccounts(countByStatus.getOrDefault("Active", 0L));
+        stats.setInactiveAccounts(countByStatus.getOrDefault("Inactive", 0L));
+        stats.setFrozenAccounts(countByStatus.getOrDefault("Frozen", 0L));
         stats.setAccountTypeDistribution(typeDistribution);
-
-        // Balance by type
-        Map<String, BigDecimal> balanceByType = accounts.stream()
-                .collect(Collectors.groupingBy(
-                        Account::getAccountType,
-                        Collectors.reducing(BigDecimal.ZERO, Account::getBalance, BigDecimal::add)
-                ));
         stats.setBalanceByType(balanceByType);
-
         return stats;
     }
 
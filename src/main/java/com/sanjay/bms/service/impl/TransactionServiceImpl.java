@@ -4,16 +4,29 @@ import com.sanjay.bms.dto.*;
 import com.sanjay.bms.entity.Account;
 import com.sanjay.bms.entity.Transaction;
 import com.sanjay.bms.entity.User;
+import com.sanjay.bms.event.AccountBalanceChangedEvent;
 import com.sanjay.bms.exception.ResourceNotFoundException;
+import com.sanjay.bms.exception.TransactionLimitExceededException;
 import com.sanjay.bms.mapper.TransactionMapper;
 import com.sanjay.bms.repository.AccountRepository;
 import com.sanjay.bms.repository.TransactionRepository;
+import com.sanjay.bms.repository.TransactionSpecifications;
 import com.sanjay.bms.repository.UserRepository;
+import com.sanjay.bms.service.AccountLockingService;
+import com.sanjay.bms.service.AccountNumberAllocator;
+import com.sanjay.bms.service.DailyLimitService;
+import com.sanjay.bms.service.DailySummaryService;
+import com.sanjay.bms.service.KeysetCursor;
+import com.sanjay.bms.service.NotificationService;
 import com.sanjay.bms.service.TransactionService;
 import com.sanjay.bms.service.OtpService;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -21,17 +34,27 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @AllArgsConstructor
 @Service
 public class TransactionServiceImpl implements TransactionService {
 
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int MAX_SEARCH_LENGTH = 100;
+
     private final TransactionRepository transactionRepository;
     private final AccountRepository accountRepository;
     private final UserRepository userRepository;
     private final OtpService otpService;
+    private final DailySummaryService dailySummaryService;
+    private final AccountLockingService accountLockingService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DailyLimitService dailyLimitService;
+    private final NotificationService notificationService;
 
     @Override
     public List<TransactionDto> getTransactionsByAccountId(Long accountId) {
@@ -65,8 +88,11 @@ public class TransactionServiceImpl implements TransactionService {
     }
 
     @Override
-    @Transactional
     public TransactionDto transferFunds(TransferRequest transferRequest) {
+        return accountLockingService.executeInTransaction(() -> doTransferFunds(transferRequest));
+    }
+
+    private TransactionDto doTransferFunds(TransferRequest transferRequest) {
         if (transferRequest == null) {
             throw new IllegalArgumentException("Transfer request cannot be null");
         }
@@ -88,13 +114,16 @@ public class TransactionServiceImpl implements TransactionService {
                 .orElseThrow(() -> new ResourceNotFoundException("Source account not found: " + transferRequest.getFromAccountNumber()));
 
         Account toAccount = accountRepository.findByAccountNumber(transferRequest.getToAccountNumber())
-                .orElseThrow(() -> new ResourceNotFoundException("Destination account not found: " + transferRequest.getToAccountNumber()));
+                .orElseThrow(() -> destinationNotFound(transferRequest.getToAccountNumber()));
 
         // Validate same account
         if (fromAccount.getId().equals(toAccount.getId())) {
             throw new IllegalArgumentException("Cannot transfer to the same account");
         }
 
+        // Lock both rows before reading balances
+        accountLockingService.lockForTransfer(fromAccount, toAccount);
+
         // Check balance
         if (fromAccount.getBalance().compareTo(transferRequest.getAmount()) < 0) {
             throw new IllegalArgumentException("Insufficient balance. Available: " + fromAccount.getBalance());
@@ -108,11 +137,18 @@ public class TransactionServiceImpl implements TransactionService {
             throw new IllegalArgumentException("Destination account is not active");
         }
 
+        dailyLimitService.reserve(fromAccount.getId(), transferRequest.getAmount(),
+                fromAccount.getDailyTransactionLimit());
+
         String referenceNumber = "TXN" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
 
+        LocalDateTime fromPreviousActivity = fromAccount.getLastTransactionDate();
+        LocalDateTime toPreviousActivity = toAccount.getLastTransactionDate();
+
         // Debit from source
         BigDecimal newFromBalance = fromAccount.getBalance().subtract(transferRequest.getAmount());
         fromAccount.setBalance(newFromBalance);
+        fromAccount.setLastTransactionDate(LocalDateTime.now());
         accountRepository.save(fromAccount);
 
         // Create debit transaction
@@ -132,6 +168,7 @@ public class TransactionServiceImpl implements TransactionService {
         // Credit to destination
         BigDecimal newToBalance = toAccount.getBalance().add(transferRequest.getAmount());
         toAccount.setBalance(newToBalance);
+        toAccount.setLastTransactionDate(LocalDateTime.now());
         accountRepository.save(toAccount);
 
         // Create credit transaction
@@ -148,16 +185,65 @@ public class TransactionServiceImpl implements TransactionService {
         creditTransaction.setStatus("SUCCESS");
         transactionRepository.save(creditTransaction);
 
+        dailySummaryService.recordTransaction("TRANSFER_OUT", transferRequest.getAmount(), fromPreviousActivity);
+        dailySummaryService.recordTransaction("TRANSFER_IN", transferRequest.getAmount(), toPreviousActivity);
+        eventPublisher.publishEvent(new AccountBalanceChangedEvent(List.of(fromAccount.getId(), toAccount.getId())));
+        notificationService.notifyTransfer(fromAccount.getUser(), toAccount.getUser(), fromAccount.getAccountNumber(),
+                toAccount.getAccountNumber(), transferRequest.getAmount(), referenceNumber);
+
         log.info("Transfer completed successfully. Reference: {}", referenceNumber);
         return TransactionMapper.mapToTransactionDto(debitTransaction);
     }
 
     @Override
-    public List<TransactionDto> getAllTransactions() {
-        List<Transaction> transactions = transactionRepository.findAll();
-        return transactions.stream()
+    public TransactionPageDto getTransactionsPage(String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        // Fetch one extra row to know whether another page exists
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+
+        List<Transaction> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = transactionRepository.findFirstPage(limit);
+        } else {
+            KeysetCursor.Position<LocalDateTime> position = KeysetCursor.decodeDate(cursor);
+            rows = transactionRepository.findPageBefore(position.sortValue(), position.id(), limit);
+        }
+
+        boolean hasMore = rows.size() > pageSize;
+        if (hasMore) {
+            rows = rows.subList(0, pageSize);
+        }
+
+        String nextCursor = null;
+        if (hasMore) {
+            Transaction last = rows.get(rows.size() - 1);
+            nextCursor = KeysetCursor.encode(last.getTransactionDate(), last.getId());
+        }
+
+        List<TransactionDto> transactions = rows.stream()
                 .map(TransactionMapper::mapToTransactionDto)
                 .collect(Collectors.toList());
+        return new TransactionPageDto(transactions, nextCursor, hasMore);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAllTransactions(Consumer<TransactionDto> consumer) {
+        try (Stream<TransactionDto> transactions = transactionRepository.streamAllAsDto()) {
+            transactions.forEach(consumer);
+        }
+    }
+
+    private static String upperOrNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim().toUpperCase();
+    }
+
+    private static RuntimeException destinationNotFound(String accountNumber) {
+        if (!AccountNumberAllocator.hasValidCheckDigit(accountNumber)) {
+            return new IllegalArgumentException("Destination account number " + accountNumber +
+                    " is not valid, please check it for typos");
+        }
+        return new ResourceNotFoundException("Destination account not found: " + accountNumber);
     }
 
     @Override
@@ -210,8 +296,11 @@ public class TransactionServiceImpl implements TransactionService {
     }
 
     @Override
-    @Transactional
     public TransactionDto transferFunds(TransferRequestWithOtp request, String username, HttpServletRequest httpRequest) {
+        return accountLockingService.executeInTransaction(() -> doTransferFunds(request, username));
+    }
+
+    private TransactionDto doTransferFunds(TransferRequestWithOtp request, String username) {
         log.info("Transfer with OTP from user: {}", username);
 
         // Validate user
@@ -227,8 +316,9 @@ public class TransactionServiceImpl implements TransactionService {
             throw new IllegalArgumentException("Invalid or expired OTP");
         }
 
-        // Find the pending transaction
-        Transaction pendingTransaction = transactionRepository.findByReferenceNumber(request.getTransactionRef())
+        // Find and lock the pending transaction; a concurrent completion of the same
+        // reference waits here and then sees it is no longer PENDING
+        Transaction pendingTransaction = transactionRepository.findTransferOutForUpdate(request.getTransactionRef())
                 .orElseThrow(() -> new ResourceNotFoundException("Transaction not found"));
 
         if (!"PENDING".equals(pendingTransaction.getStatus())) {
@@ -247,6 +337,12 @@ public class TransactionServiceImpl implements TransactionService {
             throw new IllegalArgumentException("You don't own the source account");
         }
 
+        accountLockingService.lockForTransfer(fromAccount, toAccount);
+
+        if (!"PENDING".equals(pendingTransaction.getStatus())) {
+            throw new IllegalArgumentException("Transaction is not in PENDING state");
+        }
+
         // Check balance again (in case it changed)
         if (fromAccount.getBalance().compareTo(pendingTransaction.getAmount()) < 0) {
             pendingTransaction.setStatus("FAILED");
@@ -268,8 +364,11 @@ public class TransactionServiceImpl implements TransactionService {
     }
 
     @Override
-    @Transactional
     public String initiateTransfer(TransferRequest request, String username) {
+        return accountLockingService.executeInTransaction(() -> doInitiateTransfer(request, username));
+    }
+
+    private String doInitiateTransfer(TransferRequest request, String username) {
         log.info("Initiating transfer for user: {}", username);
 
         // Validate user
@@ -281,7 +380,7 @@ public class TransactionServiceImpl implements TransactionService {
                 .orElseThrow(() -> new ResourceNotFoundException("Source account not found"));
 
         Account toAccount = accountRepository.findByAccountNumber(request.getToAccountNumber())
-                .orElseThrow(() -> new ResourceNotFoundException("Destination account not found"));
+                .orElseThrow(() -> destinationNotFound(request.getToAccountNumber()));
 
         // Verify ownership
         if (!fromAccount.getUserId().equals(user.getId())) {
@@ -293,6 +392,8 @@ public class TransactionServiceImpl implements TransactionService {
             throw new IllegalArgumentException("Cannot transfer to the same account");
         }
 
+        accountLockingService.lockForTransfer(fromAccount, toAccount);
+
         if (request.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
             throw new IllegalArgumentException("Transfer amount must be greater than zero");
         }
@@ -309,6 +410,14 @@ public class TransactionServiceImpl implements TransactionService {
             throw new IllegalArgumentException("Destination account is not active");
         }
 
+        // Checked again, and reserved, when the transfer completes
+        BigDecimal remainingToday = dailyLimitService.getRemaining(fromAccount.getId(),
+                fromAccount.getDailyTransactionLimit());
+        if (request.getAmount().compareTo(remainingToday) > 0) {
+            throw new TransactionLimitExceededException("Daily transaction limit exceeded. Remaining for the next 24 hours: "
+                    + remainingToday);
+        }
+
         // Generate transaction reference
         String transactionRef = "TXN" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
 
@@ -356,9 +465,14 @@ public class TransactionServiceImpl implements TransactionService {
 
     private void completeTransfer(Transaction pendingTransaction, Account fromAccount,
                                   Account toAccount, TransferRequest request) {
+        dailyLimitService.reserve(fromAccount.getId(), request.getAmount(), fromAccount.getDailyTransactionLimit());
+
         // Update pending transaction status
         pendingTransaction.setStatus("SUCCESS");
 
+        LocalDateTime fromPreviousActivity = fromAccount.getLastTransactionDate();
+        LocalDateTime toPreviousActivity = toAccount.getLastTransactionDate();
+
         // Debit from source
         BigDecimal newFromBalance = fromAccount.getBalance().subtract(request.getAmount());
         fromAccount.setBalance(newFromBalance);
@@ -389,43 +503,122 @@ public class TransactionServiceImpl implements TransactionService {
         creditTransaction.setStatus("SUCCESS");
         transactionRepository.save(creditTransaction);
 
+        dailySummaryService.recordTransaction("TRANSFER_OUT", request.getAmount(), fromPreviousActivity);
+        dailySummaryService.recordTransaction("TRANSFER_IN", request.getAmount(), toPreviousActivity);
+        eventPublisher.publishEvent(new AccountBalanceChangedEvent(List.of(fromAccount.getId(), toAccount.getId())));
+        notificationService.notifyTransfer(fromAccount.getUser(), toAccount.getUser(), fromAccount.getAccountNumber(),
+                toAccount.getAccountNumber(), request.getAmount(), pendingTransaction.getReferenceNumber());
+
         log.info("Transfer completed. Reference: {}", pendingTransaction.getReferenceNumber());
     }
 
     @Override
-    public List<TransactionDto> filterTransactions(TransactionFilterDto filter, String username) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+    public TransactionPageDto filterTransactions(TransactionFilterDto filter, String username) {
+        List<Long> accountIds = accountRepository.findIdsByUsername(username);
+        if (filter.getAccountId() != null) {
+            if (!accountIds.contains(filter.getAccountId())) {
+                throw new SecurityException("Access denied");
+            }
+            accountIds = List.of(filter.getAccountId());
+        }
+        if (accountIds.isEmpty()) {
+            return new TransactionPageDto(List.of(), null, false);
+        }
+        if (filter.getMinAmount() != null && filter.getMaxAmount() != null
+                && filter.getMinAmount().compareTo(filter.getMaxAmount()) > 0) {
+            throw new IllegalArgumentException("Minimum amount cannot exceed maximum amount");
+        }
+        if (filter.getStartDate() != null && filter.getEndDate() != null
+                && filter.getStartDate().isAfter(filter.getEndDate())) {
+            throw new IllegalArgumentException("Start date must be before end date");
+        }
 
-        List<Account> userAccounts = accountRepository.findByUser_Id(user.getId());
-        List<Long> accountIds = userAccounts.stream()
-                .map(Account::getId)
-                .collect(Collectors.toList());
+        boolean byAmount = "amount".equalsIgnoreCase(filter.getSortBy());
+        boolean descending = !"ASC".equalsIgnoreCase(filter.getSortDirection());
+        String sortField = byAmount ? "amount" : "transactionDate";
+        int pageSize = Math.max(1, Math.min(filter.getSize() != null ? filter.getSize() : 50, MAX_PAGE_SIZE));
+
+        Specification<Transaction> spec = Specification.allOf(
+                TransactionSpecifications.accountIn(accountIds),
+                TransactionSpecifications.hasType(upperOrNull(filter.getTransactionType())),
+                TransactionSpecifications.hasStatus(upperOrNull(filter.getStatus())),
+                TransactionSpecifications.amountAtLeast(filter.getMinAmount()),
+                TransactionSpecifications.amountAtMost(filter.getMaxAmount()),
+                TransactionSpecifications.dateFrom(filter.getStartDate()),
+                TransactionSpecifications.dateTo(filter.getEndDate()));
+
+        if (filter.getCursor() != null && !filter.getCursor().isBlank()) {
+            if (byAmount) {
+                KeysetCursor.Position<BigDecimal> position = KeysetCursor.decodeAmount(filter.getCursor());
+                spec = spec.and(TransactionSpecifications.after(sortField, position.sortValue(), position.id(),
+                        descending));
+            } else {
+                KeysetCursor.Position<LocalDateTime> position = KeysetCursor.decodeDate(filter.getCursor());
+                spec = spec.and(TransactionSpecifications.after(sortField, position.sortValue(), position.id(),
+                        descending));
+            }
+        }
 
-        List<Transaction> transactions = transactionRepository.findByAccountIdInOrderByTransactionDateDesc(accountIds);
+        Sort.Direction direction = descending ? Sort.Direction.DESC : Sort.Direction.ASC;
+        Sort sort = Sort.by(direction, sortField).and(Sort.by(direction, "id"));
+        // Fetch one extra row to know whether another page exists
+        List<Transaction> rows = transactionRepository.findBy(spec,
+                query -> query.sortBy(sort).limit(pageSize + 1).all());
 
-        return transactions.stream()
+        boolean hasMore = rows.size() > pageSize;
+        if (hasMore) {
+            rows = rows.subList(0, pageSize);
+        }
+
+        String nextCursor = null;
+        if (hasMore) {
+            Transaction last = rows.get(rows.size() - 1);
+            nextCursor = byAmount ? KeysetCursor.encode(last.getAmount(), last.getId())
+                    : KeysetCursor.encode(last.getTransactionDate(), last.getId());
+        }
+
+        List<TransactionDto> transactions = rows.stream()
                 .map(TransactionMapper::mapToTransactionDto)
                 .collect(Collectors.toList());
+        return new TransactionPageDto(transactions, nextCursor, hasMore);
     }
 
     @Override
-    public List<TransactionDto> searchTransactions(String searchTerm, String username) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+    public TransactionSearchPageDto searchTransactions(String searchTerm, int page, int size, String username) {
+        String term = searchTerm != null ? searchTerm.trim() : "";
+        if (term.isEmpty()) {
+            throw new IllegalArgumentException("Search term is required");
+        }
+        if (term.length() > MAX_SEARCH_LENGTH) {
+            throw new IllegalArgumentException("Search term is too long");
+        }
+        int pageNumber = Math.max(0, page);
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
 
-        List<Account> userAccounts = accountRepository.findByUser_Id(user.getId());
-        List<Long> accountIds = userAccounts.stream()
-                .map(Account::getId)
-                .collect(Collectors.toList());
+        List<Long> accountIds = accountRepository.findIdsByUsername(username);
+        if (accountIds.isEmpty()) {
+            return new TransactionSearchPageDto(List.of(), pageNumber, pageSize, false);
+        }
 
-        List<Transaction> transactions = transactionRepository.findByAccountIdInOrderByTransactionDateDesc(accountIds);
+        // Every word must match, as a prefix, in the full-text index
+        String tsQuery = Stream.of(term.split("[^\\p{L}\\p{N}]+"))
+                .filter(word -> !word.isEmpty())
+                .map(word -> word + ":*")
+                .collect(Collectors.joining(" & "));
+        String pattern = "%" + term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+
+        // Fetch one extra row to know whether another page exists
+        List<Transaction> rows = transactionRepository.search(accountIds, tsQuery, pattern, term,
+                pageSize + 1, pageNumber * pageSize);
+        boolean hasMore = rows.size() > pageSize;
+        if (hasMore) {
+            rows = rows.subList(0, pageSize);
+        }
 
-        return transactions.stream()
-                .filter(t -> t.getDescription().toLowerCase().contains(searchTerm.toLowerCase()) ||
-                        t.getReferenceNumber().toLowerCase().contains(searchTerm.toLowerCase()))
+        List<TransactionDto> transactions = rows.stream()
                 .map(TransactionMapper::mapToTransactionDto)
                 .collect(Collectors.toList());
+        return new TransactionSearchPageDto(transactions, pageNumber, pageSize, hasMore);
     }
 
     @Override
@@ -4,6 +4,7 @@ import com.sanjay.bms.dto.*;
 import com.sanjay.bms.entity.Account;
 import com.sanjay.bms.entity.Notification;
 import com.sanjay.bms.entity.User;
+import com.sanjay.bms.event.NotificationsChangedEvent;
 import com.sanjay.bms.exception.ResourceNotFoundException;
 import com.sanjay.bms.mapper.AccountMapper;
 import com.sanjay.bms.mapper.NotificationMapper;
@@ -21,6 +22,8 @@ import org.springframework.cache.annotation.CacheEvict;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -36,6 +39,8 @@ import java.util.stream.Collectors;
 @Service
 public class UserProfileServiceImpl implements UserProfileService {
 
+    private static final int MAX_NOTIFICATION_PAGE_SIZE = 100;
+
     private final UserRepository userRepository;
     private final AccountRepository accountRepository;
     private final TransactionRepository transactionRepository;
@@ -44,6 +49,8 @@ public class UserProfileServiceImpl implements UserProfileService {
     private final PasswordValidator passwordValidator;
     private final TwoFactorAuthService twoFactorAuthService;
     private final AuditService auditService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final UnreadNotificationCounter unreadNotificationCounter;
 
     @Override
     public UserProfileDto getUserProfile(String username) {
@@ -268,11 +275,48 @@ public class UserProfileServiceImpl implements UserProfileService {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found"));
 
-        return notificationRepository.findByUserOrderByCreatedAtDesc(user).stream()
+        // Newest page only; older history is read through getNotificationsPage
+        return notificationRepository.findFirstPage(user, false, PageRequest.of(0, MAX_NOTIFICATION_PAGE_SIZE))
+                .stream()
                 .map(NotificationMapper::mapToNotificationDto)
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public NotificationPageDto getNotificationsPage(String username, String cursor, int size, boolean unreadOnly) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+
+        int pageSize = Math.max(1, Math.min(size, MAX_NOTIFICATION_PAGE_SIZE));
+        // Fetch one extra row to know whether another page exists
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+
+        List<Notification> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = notificationRepository.findFirstPage(user, unreadOnly, limit);
+        } else {
+            KeysetCursor.Position<LocalDateTime> position = KeysetCursor.decodeDate(cursor);
+            rows = notificationRepository.findPageBefore(user, unreadOnly,
+                    position.sortValue(), position.id(), limit);
+        }
+
+        boolean hasMore = rows.size() > pageSize;
+        if (hasMore) {
+            rows = rows.subList(0, pageSize);
+        }
+
+        String nextCursor = null;
+        if (hasMore) {
+            Notification last = rows.get(rows.size() - 1);
+            nextCursor = KeysetCursor.encode(last.getCreatedAt(), last.getId());
+        }
+
+        List<NotificationDto> notifications = rows.stream()
+                .map(NotificationMapper::mapToNotificationDto)
+                .collect(Collectors.toList());
+        return new NotificationPageDto(notifications, nextCursor, hasMore);
+    }
+
     @Override
     public List<NotificationDto> getUnreadNotifications(String username) {
         User user = userRepository.findByUsername(username)
@@ -289,9 +333,22 @@ public class UserProfileServiceImpl implements UserProfileService {
         Notification notification = notificationRepository.findById(notificationId)
                 .orElseThrow(() -> new ResourceNotFoundException("Notification not found"));
 
-        notification.setIsRead(true);
-        notification.setReadAt(LocalDateTime.now());
-        notificationRepository.save(notification);
+        String username = notification.getUser().getUsername();
+        if (notificationRepository.markAsRead(notificationId, LocalDateTime.now()) > 0) {
+            unreadNotificationCounter.adjust(username, -1);
+            eventPublisher.publishEvent(new NotificationsChangedEvent(username));
+        }
+    }
+
+    @Override
+    @Transactional
+    public void deleteNotification(Long notificationId, String username) {
+        boolean wasRead = notificationRepository.deleteOwned(notificationId, username)
+                .orElseThrow(() -> new ResourceNotFoundException("Notification not found"));
+        if (!wasRead) {
+            unreadNotificationCounter.adjust(username, -1);
+        }
+        eventPublisher.publishEvent(new NotificationsChangedEvent(username));
     }
 
     @Override
@@ -300,14 +357,10 @@ public class UserProfileServiceImpl implements UserProfileService {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found"));
 
-        List<Notification> notifications = notificationRepository
-                .findByUserAndIsReadFalse(user);
-
-        notifications.forEach(n -> {
-            n.setIsRead(true);
-            n.setReadAt(LocalDateTime.now());
-        });
-
-        notificationRepository.saveAll(notifications);
+        int updated = notificationRepository.markAllAsRead(user, LocalDateTime.now());
+        if (updated > 0) {
+            unreadNotificationCounter.adjust(username, -updated);
+            eventPublisher.publishEvent(new NotificationsChangedEvent(username));
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,7 @@
+package com.sanjay.bms;
+
+import org.springframework.test.context.TestPropertySource;
+
+@TestPropertySource(properties = "banking.transaction.concurrency-mode=PESSIMISTIC")
+class PessimisticTransferConcurrencyTests extends TransferConcurrencyTests {
+}
@@ -0,0 +1,149 @@
+package com.sanjay.bms;
+
+import com.sanjay.bms.dto.TransferRequest;
+import com.sanjay.bms.entity.Account;
+import com.sanjay.bms.entity.User;
+import com.sanjay.bms.repository.AccountRepository;
+import com.sanjay.bms.repository.TransactionRepository;
+import com.sanjay.bms.repository.UserRepository;
+import com.sanjay.bms.service.TransactionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Concurrent transfers against a hot account, run once per concurrency mode by the
+// subclasses. Uses a throwaway PostgreSQL container, so nothing needs cleaning up.
+@SpringBootTest
+abstract class TransferConcurrencyTests {
+
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    static {
+        // Shared by both modes and stopped when the JVM exits
+        POSTGRES.start();
+    }
+
+    private static final int SOURCE_ACCOUNTS = 20;
+    private static final int TRANSFERS = 200;
+    private static final BigDecimal OPENING_BALANCE = new BigDecimal("1000.00");
+    private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User user;
+    private Account hotAccount;
+    private final List<Account> sourceAccounts = new ArrayList<>();
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @BeforeEach
+    void setUp() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        user = new User();
+        user.setUsername("concurrency_" + suffix);
+        user.setEmail("concurrency_" + suffix + "@example.com");
+        user.setPassword("unused");
+        user.setFullName("Concurrency Test");
+        user.setRole("USER");
+        user.setCreatedAt(LocalDateTime.now());
+        user = userRepository.save(user);
+
+        hotAccount = createAccount();
+        for (int i = 0; i < SOURCE_ACCOUNTS; i++) {
+            sourceAccounts.add(createAccount());
+        }
+    }
+
+    @Test
+    void concurrentTransfersAgainstHotAccountLoseNoUpdates() throws Exception {
+        LocalDateTime started = LocalDateTime.now().minusSeconds(1);
+        AtomicInteger incoming = new AtomicInteger();
+        AtomicInteger outgoing = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(32);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int i = 0; i < TRANSFERS; i++) {
+            Account other = sourceAccounts.get(i % SOURCE_ACCOUNTS);
+            // Alternate direction so opposite transfers on the same pair race each other
+            boolean intoHot = i % 2 == 0;
+            futures.add(pool.submit(() -> {
+                TransferRequest request = new TransferRequest();
+                request.setFromAccountNumber(intoHot ? other.getAccountNumber() : hotAccount.getAccountNumber());
+                request.setToAccountNumber(intoHot ? hotAccount.getAccountNumber() : other.getAccountNumber());
+                request.setAmount(AMOUNT);
+                try {
+                    transactionService.transferFunds(request);
+                    (intoHot ? incoming : outgoing).incrementAndGet();
+                } catch (OptimisticLockingFailureException e) {
+                    // Retries exhausted: the transfer is refused, never half applied
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        BigDecimal debited = transactionRepository.sumDebitsSince(hotAccount.getId(), started);
+        assertEquals(0, AMOUNT.multiply(BigDecimal.valueOf(outgoing.get())).compareTo(debited),
+                "one debit per successful transfer out of the hot account");
+
+        BigDecimal expectedHot = OPENING_BALANCE
+                .add(AMOUNT.multiply(BigDecimal.valueOf(incoming.get())))
+                .subtract(AMOUNT.multiply(BigDecimal.valueOf(outgoing.get())));
+        Account hot = accountRepository.findById(hotAccount.getId()).orElseThrow();
+        assertEquals(0, expectedHot.compareTo(hot.getBalance()), "hot account balance");
+
+        BigDecimal total = accountRepository.findAllById(
+                        sourceAccounts.stream().map(Account::getId).toList()).stream()
+                .map(Account::getBalance)
+                .reduce(hot.getBalance(), BigDecimal::add);
+        BigDecimal expectedTotal = OPENING_BALANCE.multiply(BigDecimal.valueOf(SOURCE_ACCOUNTS + 1));
+        assertEquals(0, expectedTotal.compareTo(total), "money is neither created nor destroyed");
+    }
+
+    private Account createAccount() {
+        Account account = new Account();
+        account.setAccountNumber("CT" + String.format("%010d", (long) (Math.random() * 10_000_000_000L)));
+        account.setAccountHolderName("Concurrency Test");
+        account.setAccountType("Savings");
+        account.setBalance(OPENING_BALANCE);
+        account.setAccountStatus("Active");
+        account.setUser(user);
+        account.setCreatedAt(LocalDateTime.now());
+        return accountRepository.save(account);
+    }
+}